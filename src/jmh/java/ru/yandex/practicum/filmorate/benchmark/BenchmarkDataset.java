@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Поднимает контекст приложения без веб-сервера на отдельной in-memory H2
+ * и заполняет её синтетическими данными заданного размера.
+ * Размеры задаются параметрами JMH, например {@code -p users=100000 -p films=50000}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDataset {
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Param("10000")
+    public int users;
+
+    @Param("5000")
+    public int films;
+
+    @Param("20")
+    public int likesPerUser;
+
+    @Param("50")
+    public int friendsPerUser;
+
+    @Param("2")
+    public int genresPerFilm;
+
+    public ConfigurableApplicationContext context;
+
+    /**
+     * Пользователь без лайков и друзей для сценариев записи, не меняющих исходные данные
+     */
+    public int probeUserId;
+
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=ERROR",
+                        "logging.level.ru.yandex.practicum.filmorate=ERROR")
+                .run();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seedUsers(jdbcTemplate);
+        seedFilms(jdbcTemplate);
+        seedFilmGenres(jdbcTemplate);
+        seedLikes(jdbcTemplate);
+        seedFriends(jdbcTemplate);
+
+        // Индексы в памяти строятся по БД, а данные залиты в обход хранилищ
+        context.getBeansOfType(InMemoryIndex.class).values().forEach(InMemoryIndex::rebuild);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.getBean(JdbcTemplate.class).execute("DROP ALL OBJECTS");
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int randomUserId() {
+        return 1 + random.nextInt(users);
+    }
+
+    public int randomFilmId() {
+        return 1 + random.nextInt(films);
+    }
+
+    private void seedUsers(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+        probeUserId = users + 1;
+        for (int i = 1; i <= probeUserId; i++) {
+            rows.add(new Object[]{i, "user" + i + "@mail.ru", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1980, 1, 1).plusDays(i % 10_000))});
+            flushIfFull(jdbcTemplate, "INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                    rows, i == probeUserId);
+        }
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (probeUserId + 1));
+    }
+
+    private void seedFilms(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{i, "Film " + i, "Description " + i,
+                    Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(i % 25_000)), 90 + i % 60, 1 + i % 5});
+            flushIfFull(jdbcTemplate,
+                    "INSERT INTO films (id, name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?, ?)",
+                    rows, i == films);
+        }
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN id RESTART WITH " + (films + 1));
+    }
+
+    private void seedFilmGenres(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int filmId = 1; filmId <= films; filmId++) {
+            for (int g = 0; g < Math.min(genresPerFilm, 6); g++) {
+                rows.add(new Object[]{filmId, 1 + (filmId + g) % 6});
+            }
+            flushIfFull(jdbcTemplate, "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
+                    rows, filmId == films);
+        }
+    }
+
+    private void seedLikes(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int filmId : distinctRandom(likesPerUser, films)) {
+                rows.add(new Object[]{filmId, userId});
+            }
+            flushIfFull(jdbcTemplate, "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                    rows, userId == users);
+        }
+        jdbcTemplate.update("UPDATE films f SET likes_count = " +
+                "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)");
+    }
+
+    private void seedFriends(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int friendId : distinctRandom(friendsPerUser, users)) {
+                if (friendId != userId) {
+                    rows.add(new Object[]{userId, friendId});
+                }
+            }
+            flushIfFull(jdbcTemplate, "INSERT INTO friends (user_id, friend_id, confirmed) VALUES (?, ?, false)",
+                    rows, userId == users);
+        }
+    }
+
+    private Set<Integer> distinctRandom(int count, int bound) {
+        Set<Integer> ids = new HashSet<>();
+        int target = Math.min(count, bound);
+        while (ids.size() < target) {
+            ids.add(1 + random.nextInt(bound));
+        }
+        return ids;
+    }
+
+    private void flushIfFull(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows, boolean last) {
+        if (rows.size() >= INSERT_BATCH_SIZE || (last && !rows.isEmpty())) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogExporter;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogImporter;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Сравнение двоичной выгрузки каталога с SQL-скриптом H2.
+ * БД заполняется {@link BenchmarkDataset}, затем rounds раз каталог выгружается и загружается обратно
+ * обоими способами: {@link CatalogExporter}/{@link CatalogImporter} и {@code SCRIPT TO}/{@code RUNSCRIPT FROM}
+ * для тех же пяти таблиц. Для каждого раунда печатаются время выгрузки, время загрузки и размер файла.
+ * <p>
+ * Аргументы: {@code [users] [films] [rounds] [directory]}, по умолчанию 100000, 50000, 3 и временный каталог.
+ */
+public final class CatalogDumpBenchmark {
+    private static final List<String> TABLES = List.of("friends", "film_likes", "film_genres", "films", "users");
+
+    private CatalogDumpBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkDataset dataset = new BenchmarkDataset();
+        dataset.users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        dataset.films = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        dataset.likesPerUser = 20;
+        dataset.friendsPerUser = 50;
+        dataset.genresPerFilm = 2;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        Path directory = args.length > 3 ? Path.of(args[3]) : Files.createTempDirectory("filmorate-dump");
+
+        long started = System.nanoTime();
+        dataset.setUp();
+        System.out.printf("Заполнение %d пользователей и %d фильмов: %.1f с%n",
+                dataset.users, dataset.films, (System.nanoTime() - started) / 1e9);
+
+        JdbcTemplate jdbcTemplate = dataset.bean(JdbcTemplate.class);
+        CatalogExporter exporter = dataset.bean(CatalogExporter.class);
+        CatalogImporter importer = dataset.bean(CatalogImporter.class);
+        Path binaryFile = directory.resolve("catalog.fcat").toAbsolutePath();
+        Path scriptFile = directory.resolve("catalog.sql").toAbsolutePath();
+
+        try {
+            System.out.printf("%-8s %-8s %12s %12s %10s%n", "run", "format", "export, ms", "import, ms", "file, MB");
+            for (int run = 1; run <= rounds; run++) {
+                long exportStarted = System.nanoTime();
+                try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    exporter.export(channel);
+                }
+                long exported = System.nanoTime();
+                truncateTables(jdbcTemplate);
+                long importStarted = System.nanoTime();
+                try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+                    importer.importFrom(channel);
+                }
+                print(run, "binary", exported - exportStarted, System.nanoTime() - importStarted, binaryFile);
+
+                exportStarted = System.nanoTime();
+                jdbcTemplate.execute("SCRIPT TO '" + scriptFile + "' TABLE " + String.join(", ", TABLES));
+                exported = System.nanoTime();
+                // Скрипт сам создаёт таблицы и индексы, поэтому таблицы удаляются целиком
+                jdbcTemplate.execute("DROP TABLE " + String.join(", ", TABLES));
+                importStarted = System.nanoTime();
+                jdbcTemplate.execute("RUNSCRIPT FROM '" + scriptFile + "'");
+                print(run, "sql", exported - exportStarted, System.nanoTime() - importStarted, scriptFile);
+            }
+        } finally {
+            dataset.tearDown();
+        }
+    }
+
+    private static void truncateTables(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        TABLES.forEach(table -> jdbcTemplate.execute("TRUNCATE TABLE " + table));
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    private static void print(int run, String format, long exportNanos, long importNanos, Path file)
+            throws Exception {
+        System.out.printf("%-8d %-8s %12.0f %12.0f %10.1f%n", run, format, exportNanos / 1e6, importNanos / 1e6,
+                Files.size(file) / (1024.0 * 1024.0));
+    }
+}
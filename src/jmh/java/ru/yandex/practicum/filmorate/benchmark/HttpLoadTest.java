@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочный тест {@code GET /films/{id}}: приложение поднимается дважды — на пуле платформенных
+ * потоков Tomcat и на виртуальных потоках, — и каждый раз clients одновременных клиентов
+ * выполняют по requestsPerClient запросов. Печатает пропускную способность и перцентили задержки.
+ * Пул соединений и лимиты Tomcat в обоих режимах одинаковые (как в профиле {@code virtual-threads}),
+ * различается только {@code spring.threads.virtual.enabled}.
+ * <p>
+ * Аргументы: {@code [clients] [requestsPerClient] [films]}, по умолчанию 5000, 20 и 1000.
+ * Для тысяч соединений может понадобиться поднять лимит открытых файлов ({@code ulimit -n}).
+ */
+public final class HttpLoadTest {
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int films = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %8s%n",
+                "mode", "req/s", "p50, ms", "p95, ms", "p99, ms", "max, ms", "errors");
+        for (boolean virtual : new boolean[]{false, true}) {
+            Result result = run(virtual, clients, requestsPerClient, films);
+            System.out.printf("%-10s %10.0f %10.1f %10.1f %10.1f %10.1f %8d%n",
+                    virtual ? "virtual" : "platform", result.throughput(),
+                    result.percentileMs(0.5), result.percentileMs(0.95), result.percentileMs(0.99),
+                    result.percentileMs(1.0), result.errors());
+        }
+    }
+
+    private static Result run(boolean virtual, int clients, int requestsPerClient, int films) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + (virtual ? "virtual" : "platform")
+                                + ";DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=ERROR",
+                        "logging.level.ru.yandex.practicum.filmorate=ERROR",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "spring.datasource.hikari.minimum-idle=16",
+                        "spring.datasource.hikari.connection-timeout=10000",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=10000",
+                        "spring.threads.virtual.enabled=" + virtual);
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            seedFilms(context.getBean(FilmStorage.class), films);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(port, clients, requestsPerClient, films);
+        }
+    }
+
+    private static void seedFilms(FilmStorage filmStorage, int films) {
+        List<Film> batch = new ArrayList<>(films);
+        for (int i = 1; i <= films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(1950, 1, 1).plusDays(i % 25_000));
+            film.setDuration(90 + i % 60);
+            Mpa mpa = new Mpa();
+            mpa.setId(1 + i % 5);
+            film.setMpa(mpa);
+            batch.add(film);
+        }
+        filmStorage.saveAll(batch);
+    }
+
+    private static Result load(int port, int clients, int requestsPerClient, int films) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String baseUrl = "http://localhost:" + port + "/films/";
+        AtomicInteger errors = new AtomicInteger();
+
+        // Прогрев: JIT, пул соединений Hikari, кэши справочников
+        runClients(httpClient, baseUrl, Math.min(clients, 200), 50, films, errors);
+        errors.set(0);
+
+        long started = System.nanoTime();
+        long[] latencies = runClients(httpClient, baseUrl, clients, requestsPerClient, films, errors);
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, errors.get());
+    }
+
+    private static long[] runClients(HttpClient httpClient, String baseUrl, int clients, int requestsPerClient,
+                                     int films, AtomicInteger errors) throws Exception {
+        long[] latencies = new long[clients * requestsPerClient];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int offset = c * requestsPerClient;
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        int filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + filmId)).GET().build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request,
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[offset + r] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return latencies;
+    }
+
+    private record Result(long[] sortedLatencies, long elapsedNanos, int errors) {
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        double percentileMs(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервисные сценарии, включая проверки существования и запись лайков
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private FilmService filmService;
+    private UserService userService;
+
+    @Setup
+    public void setUp(BenchmarkDataset dataset) {
+        filmService = dataset.bean(FilmService.class);
+        userService = dataset.bean(UserService.class);
+    }
+
+    @Benchmark
+    public List<Film> popularFilms() {
+        return filmService.findPopularFilms(10, null, null);
+    }
+
+    @Benchmark
+    public Film filmById(BenchmarkDataset dataset) {
+        return filmService.findById(dataset.randomFilmId());
+    }
+
+    @Benchmark
+    public List<User> commonFriends(BenchmarkDataset dataset) {
+        return userService.findCommonFriends(dataset.randomUserId(), dataset.randomUserId());
+    }
+
+    /**
+     * Лайк и его снятие от пользователя без лайков, чтобы состояние БД не менялось между итерациями
+     */
+    @Benchmark
+    public void likeAndUnlike(BenchmarkDataset dataset) {
+        int filmId = dataset.randomFilmId();
+        filmService.addLike(filmId, dataset.probeUserId);
+        filmService.removeLike(filmId, dataset.probeUserId);
+    }
+}
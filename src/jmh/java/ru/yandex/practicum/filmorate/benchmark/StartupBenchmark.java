@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Время до первого ответа при перезапуске на файловой БД профиля {@code persistent}.
+ * Сначала БД один раз заполняется films фильмами (это же время in-memory режим тратил бы
+ * на каждом старте), затем приложение перезапускается restarts раз и для каждого запуска
+ * печатаются время подъёма контекста, время до первого ответа {@code GET /films/popular}
+ * и {@code GET /films/{id}}, время остановки (с уплотнением файла) и размер файла.
+ * <p>
+ * Аргументы: {@code [films] [restarts] [directory]}, по умолчанию 1000000, 3 и временный каталог.
+ * Если в каталоге уже есть заполненная БД, заполнение пропускается.
+ */
+public final class StartupBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int films = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int restarts = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("filmorate-startup");
+        Path databaseFile = directory.resolve("filmorate");
+
+        if (Files.exists(directory.resolve("filmorate.mv.db"))) {
+            System.out.printf("Используется существующая БД %s%n", directory);
+        } else {
+            long started = System.nanoTime();
+            try (ConfigurableApplicationContext context = builder(databaseFile)
+                    .web(WebApplicationType.NONE)
+                    .run()) {
+                seedFilms(context.getBean(JdbcTemplate.class), films);
+            }
+            System.out.printf("Заполнение %d фильмов: %.1f с%n", films, (System.nanoTime() - started) / 1e9);
+        }
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        System.out.printf("%-8s %12s %14s %14s %14s %10s%n",
+                "run", "context, ms", "popular, ms", "film, ms", "shutdown, ms", "file, MB");
+        for (int run = 1; run <= restarts; run++) {
+            long started = System.nanoTime();
+            ConfigurableApplicationContext context = builder(databaseFile).run();
+            long contextReady = System.nanoTime();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long popularAnswered = request(httpClient, port, "/films/popular?count=10");
+            long filmAnswered = request(httpClient, port, "/films/1");
+
+            long closing = System.nanoTime();
+            context.close();
+            long closed = System.nanoTime();
+
+            System.out.printf("%-8d %12.0f %14.0f %14.0f %14.0f %10.1f%n", run,
+                    (contextReady - started) / 1e6, (popularAnswered - started) / 1e6,
+                    (filmAnswered - started) / 1e6, (closed - closing) / 1e6,
+                    Files.size(directory.resolve("filmorate.mv.db")) / (1024.0 * 1024.0));
+        }
+    }
+
+    private static SpringApplicationBuilder builder(Path databaseFile) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles("persistent")
+                .properties(
+                        "server.port=0",
+                        "filmorate.storage.file=" + databaseFile.toAbsolutePath(),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=ERROR",
+                        "logging.level.ru.yandex.practicum.filmorate=ERROR");
+    }
+
+    /**
+     * Пишет фильмы и их жанры пакетами напрямую в БД: индексы в памяти построятся при следующем запуске
+     */
+    private static void seedFilms(JdbcTemplate jdbcTemplate, int films) {
+        LocalDate firstRelease = LocalDate.of(1950, 1, 1);
+        for (int from = 1; from <= films; from += INSERT_BATCH_SIZE) {
+            int to = Math.min(films, from + INSERT_BATCH_SIZE - 1);
+            List<Object[]> filmRows = new ArrayList<>(to - from + 1);
+            List<Object[]> genreRows = new ArrayList<>(to - from + 1);
+            for (int i = from; i <= to; i++) {
+                filmRows.add(new Object[]{i, "Film " + i, "Description of film number " + i,
+                        Date.valueOf(firstRelease.plusDays(i % 25_000)), 90 + i % 60, 1 + i % 5});
+                genreRows.add(new Object[]{i, 1 + i % 6});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO films (id, name, description, release_date, duration, mpa_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", filmRows);
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+        }
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN id RESTART WITH " + (films + 1));
+    }
+
+    /**
+     * Выполняет GET и возвращает момент получения ответа
+     */
+    private static long request(HttpClient httpClient, int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " вернул " + response.statusCode());
+        }
+        return System.nanoTime();
+    }
+}
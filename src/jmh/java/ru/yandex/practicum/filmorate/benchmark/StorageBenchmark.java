@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие методы хранилищ на заполненной БД
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    @Param("10")
+    public int popularCount;
+
+    @Param("100")
+    public int pageSize;
+
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+
+    @Setup
+    public void setUp(BenchmarkDataset dataset) {
+        filmStorage = dataset.bean(FilmStorage.class);
+        userStorage = dataset.bean(UserStorage.class);
+    }
+
+    @Benchmark
+    public List<Film> findPopularFilms() {
+        return filmStorage.findPopularFilms(popularCount, null, null);
+    }
+
+    @Benchmark
+    public Optional<Film> findFilmById(BenchmarkDataset dataset) {
+        return filmStorage.findById(dataset.randomFilmId());
+    }
+
+    @Benchmark
+    public List<Film> findFilmPage(BenchmarkDataset dataset) {
+        return filmStorage.findPage(dataset.randomFilmId(), pageSize);
+    }
+
+    @Benchmark
+    public Optional<User> findUserById(BenchmarkDataset dataset) {
+        return userStorage.findById(dataset.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> findFriends(BenchmarkDataset dataset) {
+        return userStorage.findFriends(dataset.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> findCommonFriends(BenchmarkDataset dataset) {
+        return userStorage.findCommonFriends(dataset.randomUserId(), dataset.randomUserId());
+    }
+
+    @Benchmark
+    public boolean existsAllUsers(BenchmarkDataset dataset) {
+        return userStorage.existsAll(List.of(dataset.randomUserId(), dataset.randomUserId()));
+    }
+}
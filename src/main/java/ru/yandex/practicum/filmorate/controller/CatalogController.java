@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CatalogDumpSummary;
+import ru.yandex.practicum.filmorate.service.CatalogDumpService;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/catalog")
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogController {
+    private final CatalogDumpService catalogDumpService;
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCatalog() {
+        log.info("Получен запрос на выгрузку каталога");
+        // Проверяем до начала потока, пока ещё можно ответить ошибкой
+        catalogDumpService.checkAvailable();
+        StreamingResponseBody body = catalogDumpService::exportTo;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("filmorate.fcat").build().toString())
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public CatalogDumpSummary importCatalog(InputStream body) {
+        log.info("Получен запрос на загрузку каталога");
+        return catalogDumpService.importFrom(body);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Условные GET-ответы: ETag берётся из метки версии, известной без обращения к БД,
+ * и при совпадении с If-None-Match отдаётся 304 без вычисления тела.
+ */
+final class ConditionalResponses {
+    /**
+     * Клиент может хранить ответ, но перед использованием обязан сверить ETag
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    /**
+     * Справочники меняются редко, их можно использовать без проверки несколько минут
+     */
+    static final CacheControl DICTIONARY = CacheControl.maxAge(Duration.ofMinutes(5));
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * @param versionTag метка версии; если null, ответ строится без ETag
+     * @return null, если клиент уже имеет актуальную версию (ответ 304 выставлен в request)
+     */
+    static <T> ResponseEntity<T> conditional(WebRequest request, String versionTag, CacheControl cacheControl,
+                                             Supplier<T> body) {
+        if (versionTag == null) {
+            return ResponseEntity.ok().body(body.get());
+        }
+        if (request.checkNotModified(versionTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(versionTag)
+                .cacheControl(cacheControl)
+                .body(body.get());
+    }
+}
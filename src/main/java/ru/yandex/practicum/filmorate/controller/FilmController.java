@@ -1,13 +1,24 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -16,18 +27,35 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
     public static final java.time.LocalDate CINEMA_BIRTHDAY = java.time.LocalDate.of(1895, 12, 28);
 
     @GetMapping
-    public List<Film> getAllFilms() {
-        log.info("Получен запрос на получение всех фильмов");
-        return filmService.findAll();
+    public ResponseEntity<List<Film>> getAllFilms(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  WebRequest request) {
+        String versionTag = filmService.catalogVersionTag();
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех фильмов");
+            return ConditionalResponses.conditional(request, versionTag, ConditionalResponses.REVALIDATE,
+                    filmService::findAll);
+        }
+        log.info("Получен запрос на получение фильмов после ID {} (limit {})", after, limit);
+        return ConditionalResponses.conditional(request, versionTag, ConditionalResponses.REVALIDATE,
+                () -> filmService.findPage(after, limit != null ? limit : KeysetJsonStreamer.DEFAULT_PAGE_SIZE));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllFilms() {
+        log.info("Получен запрос на потоковое получение всех фильмов");
+        return KeysetJsonStreamer.stream(objectMapper, filmService::findPage, Film::getId);
     }
 
     @GetMapping("/{id}")
-    public Film getFilm(@PathVariable Integer id) {
+    public ResponseEntity<Film> getFilm(@PathVariable Integer id, WebRequest request) {
         log.info("Получен запрос на получение фильма с ID: {}", id);
-        return filmService.findById(id);
+        return ConditionalResponses.conditional(request, filmService.versionTag(id), ConditionalResponses.REVALIDATE,
+                () -> filmService.findById(id));
     }
 
     @PostMapping
@@ -36,6 +64,17 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    /**
+     * Принимает JSON-массив или NDJSON; тело читается потоково, без загрузки всего списка в память
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchImportResult importFilms(InputStream body) throws IOException {
+        log.info("Получен запрос на пакетную загрузку фильмов");
+        try (MappingIterator<Film> films = objectMapper.readerFor(Film.class).readValues(body)) {
+            return filmService.importFilms(films);
+        }
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         log.info("Получен запрос на обновление фильма с ID: {}", film.getId());
@@ -54,13 +93,30 @@ public class FilmController {
         filmService.removeLike(id, userId);
     }
 
+    @PostMapping("/likes/batch")
+    public LikeBatchResult applyLikes(@RequestBody List<LikeEvent> events) {
+        log.info("Получен запрос на пакетную запись {} событий лайков", events.size());
+        return filmService.applyLikes(events);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String query,
+                                  @RequestParam(defaultValue = "title") String by,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(defaultValue = "false") boolean tiesByLikes) {
+        log.info("Получен запрос на поиск фильмов: {} (по {})", query, by);
+        return filmService.searchFilms(query, by, limit, tiesByLikes);
+    }
+
     @GetMapping("/popular")
     public List<Film> getPopularFilms(
-            @RequestParam(defaultValue = "10") Integer count) {
-        log.info("Получен запрос на получение {} популярных фильмов", count);
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer year) {
+        log.info("Получен запрос на получение {} популярных фильмов (жанр {}, год {})", count, genreId, year);
         if (count <= 0) {
             throw new ValidationException("Параметр count должен быть положительным числом");
         }
-        return filmService.findPopularFilms(count);
+        return filmService.findPopularFilms(count, genreId, year);
     }
 }
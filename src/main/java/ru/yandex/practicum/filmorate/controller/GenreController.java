@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
@@ -16,9 +18,10 @@ public class GenreController {
     private final GenreService genreService;
 
     @GetMapping
-    public List<Genre> getAllGenres() {
+    public ResponseEntity<List<Genre>> getAllGenres(WebRequest request) {
         log.info("Получен запрос на получение всех жанров");
-        return genreService.getAllGenres();
+        return ConditionalResponses.conditional(request, genreService.versionTag(), ConditionalResponses.DICTIONARY,
+                genreService::getAllGenres);
     }
 
     @GetMapping("/{id}")
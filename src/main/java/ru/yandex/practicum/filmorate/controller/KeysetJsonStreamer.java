@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Потоковая выдача всей таблицы в виде JSON-массива.
+ * Строки читаются страницами по ключу (id > последнего выданного) и сразу пишутся в ответ,
+ * поэтому в памяти одновременно находится не больше одной страницы, а соединение с БД
+ * не удерживается, пока клиент читает ответ.
+ */
+final class KeysetJsonStreamer {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int STREAM_CHUNK_SIZE = 500;
+
+    private KeysetJsonStreamer() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper objectMapper,
+                                                            BiFunction<Integer, Integer, List<T>> pageLoader,
+                                                            Function<T, Integer> idExtractor) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+
+                Integer afterId = null;
+                List<T> page;
+                do {
+                    page = pageLoader.apply(afterId, STREAM_CHUNK_SIZE);
+                    for (T item : page) {
+                        generator.writeObject(item);
+                    }
+                    generator.flush();
+                    if (!page.isEmpty()) {
+                        afterId = idExtractor.apply(page.get(page.size() - 1));
+                    }
+                } while (page.size() == STREAM_CHUNK_SIZE);
+
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
@@ -16,9 +18,10 @@ public class MpaController {
     private final MpaService mpaService;
 
     @GetMapping
-    public List<Mpa> getAllMpa() {
+    public ResponseEntity<List<Mpa>> getAllMpa(WebRequest request) {
         log.info("Получен запрос на получение всех рейтингов MPA");
-        return mpaService.getAllMpa();
+        return ConditionalResponses.conditional(request, mpaService.versionTag(), ConditionalResponses.DICTIONARY,
+                mpaService::getAllMpa);
     }
 
     @GetMapping("/{id}")
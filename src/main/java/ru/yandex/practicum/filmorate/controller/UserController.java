@@ -1,12 +1,22 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -15,11 +25,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public List<User> getAllUsers() {
-        log.info("Получен запрос на получение всех пользователей");
-        return userService.findAll();
+    public List<User> getAllUsers(@RequestParam(required = false) Integer after,
+                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех пользователей");
+            return userService.findAll();
+        }
+        log.info("Получен запрос на получение пользователей после ID {} (limit {})", after, limit);
+        return userService.findPage(after, limit != null ? limit : KeysetJsonStreamer.DEFAULT_PAGE_SIZE);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.info("Получен запрос на потоковое получение всех пользователей");
+        return KeysetJsonStreamer.stream(objectMapper, userService::findPage, User::getId);
     }
 
     @GetMapping("/{id}")
@@ -34,6 +57,17 @@ public class UserController {
         return userService.create(user);
     }
 
+    /**
+     * Принимает JSON-массив или NDJSON; тело читается потоково, без загрузки всего списка в память
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchImportResult importUsers(InputStream body) throws IOException {
+        log.info("Получен запрос на пакетную загрузку пользователей");
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(body)) {
+            return userService.importUsers(users);
+        }
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         log.info("Получен запрос на обновление пользователя с ID: {}", user.getId());
@@ -63,4 +97,18 @@ public class UserController {
         log.info("Получен запрос на получение общих друзей пользователей {} и {}", id, otherId);
         return userService.findCommonFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Integer id,
+                                           @RequestParam(required = false) Integer limit) {
+        log.info("Получен запрос на рекомендации друзей для пользователя {} (limit {})", id, limit);
+        return userService.findFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Integer id,
+                                         @RequestParam(required = false) Integer limit) {
+        log.info("Получен запрос на рекомендации фильмов для пользователя {} (limit {})", id, limit);
+        return recommendationService.findRecommendations(id, limit);
+    }
 }
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Асинхронный аппендер с ограниченной очередью, который считает отброшенные события.
+ * При neverBlock = true событие теряется, если очередь заполнена, а при заполнении
+ * выше discardingThreshold теряются события уровня INFO и ниже.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+    private static final LongAdder DROPPED = new LongAdder();
+
+    public static long droppedEvents() {
+        return DROPPED.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (isNeverBlock() && remaining == 0)) {
+            DROPPED.increment();
+        }
+        super.append(event);
+    }
+}
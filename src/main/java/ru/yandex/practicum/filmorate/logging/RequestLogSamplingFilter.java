@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Один раз на HTTP-запрос решает, попадает ли запрос в выборку журнала
+ * (доля filmorate.logging.request-sample-rate), и передаёт решение {@link SamplingTurboFilter} через MDC
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLogSamplingFilter extends OncePerRequestFilter {
+    private final double sampleRate;
+
+    public RequestLogSamplingFilter(@Value("${filmorate.logging.request-sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        MDC.put(SamplingTurboFilter.SAMPLED_KEY, String.valueOf(SamplingTurboFilter.sample(sampleRate)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(SamplingTurboFilter.SAMPLED_KEY);
+        }
+    }
+}
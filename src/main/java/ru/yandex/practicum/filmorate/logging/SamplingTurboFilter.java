@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Пропускает лишь долю sampleRate событий уровня INFO и ниже от логгеров с префиксом loggerPrefix.
+ * Внутри HTTP-запроса решение одно на весь запрос: его заранее принимает {@link RequestLogSamplingFilter}
+ * и кладёт в MDC под ключом {@link #SAMPLED_KEY}, поэтому запрос попадает в журнал целиком или не попадает.
+ * Вне запроса решение принимается для каждого события. Всё решается до форматирования сообщения;
+ * WARN и ERROR не отбрасываются никогда.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    public static final String SAMPLED_KEY = "logSampled";
+
+    private String loggerPrefix = "";
+    private double sampleRate = 1.0;
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @return true, если событие или запрос попадает в выборку с долей sampleRate
+     */
+    public static boolean sample(double sampleRate) {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (sampleRate >= 1.0 || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        String sampled = MDC.get(SAMPLED_KEY);
+        boolean pass = sampled != null ? Boolean.parseBoolean(sampled) : sample(sampleRate);
+        return pass ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
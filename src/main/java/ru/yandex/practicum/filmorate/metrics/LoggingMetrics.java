@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.logging.CountingAsyncAppender;
+
+/**
+ * Количество событий журнала, отброшенных асинхронным аппендером из-за переполнения очереди
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("logging.async.dropped", CountingAsyncAppender.class,
+                        type -> CountingAsyncAppender.droppedEvents())
+                .description("Log events dropped by the async appender")
+                .register(registry);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Оборачивает DataSource приложения для подсчёта SQL-выражений.
+     * Обёртка стоит прокси на каждом соединении, поэтому включается только свойством
+     * filmorate.metrics.sql-statements.enabled
+     */
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.metrics.sql-statements.enabled", havingValue = "true")
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.metrics.sql-statements.enabled", havingValue = "true")
+    public MeterBinder sqlStatementsMetrics() {
+        return registry -> FunctionCounter.builder("filmorate.sql.statements", StatementCountingDataSource.class,
+                        type -> StatementCountingDataSource.totalStatements())
+                .description("SQL statements prepared through the application DataSource")
+                .register(registry);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+/**
+ * Счётчик SQL-выражений, выполненных в рамках текущего HTTP-запроса.
+ * Считает только между {@link #start()} и {@link #stop()} в том же потоке.
+ */
+public final class RequestSqlStatements {
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    private RequestSqlStatements() {
+    }
+
+    static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    static void increment() {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+
+    static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter != null ? counter[0] : 0;
+    }
+}
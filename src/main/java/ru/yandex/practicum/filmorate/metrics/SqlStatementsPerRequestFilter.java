@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Публикует распределение количества SQL-выражений на HTTP-запрос
+ * (метрика filmorate.sql.statements.per.request с тегами method и uri)
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.metrics.sql-statements.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SqlStatementsPerRequestFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestSqlStatements.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = RequestSqlStatements.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("filmorate.sql.statements.per.request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Обёртка над пулом соединений, отмечающая каждое подготовленное SQL-выражение
+ * в {@link RequestSqlStatements} и в общем счётчике {@link #totalStatements()}.
+ * Метрики пула (HikariCP) доступны через unwrap.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final LongAdder TOTAL = new LongAdder();
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    /**
+     * Сколько выражений подготовлено через все обёрнутые DataSource с запуска
+     */
+    public static long totalStatements() {
+        return TOTAL.sum();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private Connection counting(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        RequestSqlStatements.increment();
+                        TOTAL.increment();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер filmorate.storage (теги storage и method) на каждый вызов FilmStorage и UserStorage.
+ * Учитываются только методы самих интерфейсов: rebuild и другие публичные методы реализаций не замеряются
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("(execution(* ru.yandex.practicum.filmorate.storage.film.FilmStorage.*(..)) " +
+            "&& target(ru.yandex.practicum.filmorate.storage.film.FilmStorage)) || " +
+            "(execution(* ru.yandex.practicum.filmorate.storage.user.UserStorage.*(..)) " +
+            "&& target(ru.yandex.practicum.filmorate.storage.user.UserStorage))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(method, m -> Timer.builder("filmorate.storage")
+                .tag("storage", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("method", m.getName())
+                .register(meterRegistry));
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог пакетной загрузки: сколько записей создано и какие элементы отклонены.
+ * Индекс ошибки — порядковый номер элемента во входных данных, начиная с нуля.
+ */
+@Getter
+public class BatchImportResult {
+    private int created;
+    private final List<ItemError> errors = new ArrayList<>();
+
+    public void addCreated(int count) {
+        created += count;
+    }
+
+    public void addError(int index, String message) {
+        errors.add(new ItemError(index, message));
+    }
+
+    public record ItemError(int index, String message) {
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Сколько строк каждой таблицы выгружено или загружено
+ */
+public record CatalogDumpSummary(int users, int films, int filmGenres, int filmLikes, int friends) {
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Итог пакетной записи лайков: сколько событий изменило данные и сколько оказалось холостыми
+ * (повторный лайк, снятие отсутствующего лайка, несуществующий фильм или пользователь)
+ */
+public record LikeBatchResult(int applied, int ignored) {
+}
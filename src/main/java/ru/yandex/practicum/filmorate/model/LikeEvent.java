@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Постановка (liked = true) или снятие (liked = false) лайка пользователем
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeEvent {
+    private Integer filmId;
+    private Integer userId;
+    private boolean liked = true;
+}
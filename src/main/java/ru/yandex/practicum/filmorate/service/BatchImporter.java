@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchImportResult;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Общий цикл пакетной загрузки.
+ * Элементы читаются из итератора по одному, проверяются и копятся в части по {@link #CHUNK_SIZE},
+ * каждая часть записывается одним пакетом. Если пакет отклонён БД, его элементы
+ * записываются по одному, чтобы найти конкретные ошибочные записи.
+ */
+final class BatchImporter {
+    static final int CHUNK_SIZE = 1000;
+
+    private BatchImporter() {
+    }
+
+    /**
+     * @param validator  возвращает текст ошибки или null, если элемент корректен
+     * @param chunkWriter записывает часть одной транзакцией
+     * @param singleWriter записывает один элемент, сообщая об ошибке исключением
+     */
+    static <T> BatchImportResult importAll(Iterator<T> items,
+                                           Function<T, String> validator,
+                                           Consumer<List<T>> chunkWriter,
+                                           Consumer<T> singleWriter) {
+        BatchImportResult result = new BatchImportResult();
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+
+        while (hasNext(items, index)) {
+            int current = index++;
+            T item;
+            try {
+                item = items.next();
+            } catch (RuntimeException e) {
+                result.addError(current, "Некорректный элемент: " + e.getMessage());
+                continue;
+            }
+
+            String error = item == null ? "Пустой элемент" : validator.apply(item);
+            if (error != null) {
+                result.addError(current, error);
+                continue;
+            }
+
+            chunk.add(item);
+            chunkIndexes.add(current);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush(chunk, chunkIndexes, chunkWriter, singleWriter, result);
+            }
+        }
+        flush(chunk, chunkIndexes, chunkWriter, singleWriter, result);
+
+        return result;
+    }
+
+    /**
+     * Первое нарушение ограничений модели в том же формате, что и у ErrorHandler
+     */
+    static <T> String firstViolation(Validator validator, T item) {
+        return validator.validate(item).stream()
+                .findFirst()
+                .map(BatchImporter::format)
+                .orElse(null);
+    }
+
+    private static String format(ConstraintViolation<?> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    private static boolean hasNext(Iterator<?> items, int index) {
+        try {
+            return items.hasNext();
+        } catch (RuntimeException e) {
+            throw new ValidationException("Не удалось разобрать тело запроса начиная с элемента " + index);
+        }
+    }
+
+    private static <T> void flush(List<T> chunk,
+                                  List<Integer> chunkIndexes,
+                                  Consumer<List<T>> chunkWriter,
+                                  Consumer<T> singleWriter,
+                                  BatchImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            chunkWriter.accept(chunk);
+            result.addCreated(chunk.size());
+        } catch (RuntimeException chunkError) {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    singleWriter.accept(chunk.get(i));
+                    result.addCreated(1);
+                } catch (RuntimeException e) {
+                    result.addError(chunkIndexes.get(i), e.getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CatalogDumpSummary;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogExporter;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogImporter;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounters;
+import ru.yandex.practicum.filmorate.storage.film.LikeWriteBehindBuffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Выгрузка и загрузка всего каталога (пользователи, фильмы, жанры фильмов, лайки, друзья).
+ * Справочники MPA и жанров не выгружаются: они заполняются из data.sql.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogDumpService {
+    private final CatalogExporter exporter;
+    private final CatalogImporter importer;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final LikeCounters likeCounters;
+    private final ObjectProvider<InMemoryIndex> indexes;
+    private final Environment environment;
+
+    /**
+     * В профиле in-memory данные живут не в БД, и выгрузка из неё была бы неполной
+     */
+    public void checkAvailable() {
+        if (environment.acceptsProfiles(Profiles.of("in-memory"))) {
+            throw new ValidationException("Выгрузка и загрузка каталога недоступны в профиле in-memory");
+        }
+    }
+
+    public CatalogDumpSummary exportTo(OutputStream out) {
+        checkAvailable();
+        // Отложенные лайки и накопленные счётчики должны попасть в выгрузку
+        likeBuffer.flush();
+        likeCounters.fold();
+        return exporter.export(Channels.newChannel(out));
+    }
+
+    public CatalogDumpSummary importFrom(InputStream in) {
+        checkAvailable();
+        CatalogDumpSummary summary = importer.importFrom(Channels.newChannel(in));
+        // Индексы в памяти строятся по БД, поэтому после загрузки их нужно перестроить
+        indexes.orderedStream().forEach(InMemoryIndex::rebuild);
+        return summary;
+    }
+}
@@ -1,21 +1,26 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.model.BatchImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeWriteBehindBuffer;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Iterator;
+import java.util.List;
 
 @Service
 @Slf4j
@@ -23,22 +28,42 @@ import java.util.stream.Collectors;
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserService userService;
-    private final MpaService mpaService;
+    private final MpaStorage mpaStorage;
     private final GenreStorage genreStorage;
-    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final LikeWriteBehindBuffer likeBuffer;
 
     public List<Film> findAll() {
-        List<Film> films = filmStorage.findAll();
-        loadGenresForFilms(films);
-        return films;
+        return filmStorage.findAll();
+    }
+
+    public List<Film> findPage(Integer afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Параметр limit должен быть положительным числом");
+        }
+        return filmStorage.findPage(afterId, limit);
+    }
+
+    /**
+     * Проверяет существование фильма, не загружая жанры
+     */
+    public void checkExists(Integer id) {
+        if (!filmStorage.existsById(id)) {
+            throw new NotFoundException("Фильм с ID " + id + " не найден");
+        }
+    }
+
+    public String versionTag(Integer id) {
+        return filmStorage.versionTag(id);
+    }
+
+    public String catalogVersionTag() {
+        return filmStorage.catalogVersionTag();
     }
 
     public Film findById(Integer id) {
-        Film film = filmStorage.findById(id)
+        return filmStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с ID " + id + " не найден"));
-        // Загружаем жанры для конкретного фильма
-        film.setGenres(genreStorage.getGenresByFilmId(film.getId()));
-        return film;
     }
 
     public Film create(Film film) {
@@ -47,10 +72,7 @@ public class FilmService {
         validateGenres(film.getGenres());
 
         try {
-            Film createdFilm = filmStorage.save(film);
-            // Загружаем жанры для созданного фильма
-            createdFilm.setGenres(genreStorage.getGenresByFilmId(createdFilm.getId()));
-            return createdFilm;
+            return filmStorage.save(film);
         } catch (DataIntegrityViolationException e) {
             // Обрабатываем случай, когда жанр не существует в базе
             if (e.getMessage().contains("GENRE") || e.getMessage().contains("genre") ||
@@ -61,23 +83,26 @@ public class FilmService {
         }
     }
 
+    public BatchImportResult importFilms(Iterator<Film> films) {
+        BatchImportResult result = BatchImporter.importAll(films, this::validateForImport, filmStorage::saveAll, this::create);
+        log.info("Пакетная загрузка фильмов: создано {}, отклонено {}", result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
     public Film update(Film film) {
         if (film.getId() == null) {
             throw new ValidationException("ID фильма не может быть пустым");
         }
 
         // Проверяем, что фильм существует
-        findById(film.getId());
+        checkExists(film.getId());
 
         validateFilm(film);
         validateMpa(film.getMpa());
         validateGenres(film.getGenres());
 
         try {
-            Film updatedFilm = filmStorage.update(film);
-            // Загружаем жанры для обновленного фильма
-            updatedFilm.setGenres(genreStorage.getGenresByFilmId(updatedFilm.getId()));
-            return updatedFilm;
+            return filmStorage.update(film);
         } catch (DataIntegrityViolationException e) {
             // Обрабатываем случай, когда жанр не существует в базе
             if (e.getMessage().contains("GENRE") || e.getMessage().contains("genre") ||
@@ -89,33 +114,93 @@ public class FilmService {
     }
 
     public void addLike(Integer filmId, Integer userId) {
-        // Проверяем существование пользователя
-        userService.findById(userId);
-        // Проверяем существование фильма
-        findById(filmId);
-
-        filmStorage.addLike(filmId, userId);
-        log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        // Проверяем существование пользователя и фильма
+        userService.checkExists(userId);
+        checkExists(filmId);
+
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(new LikeEvent(filmId, userId, true));
+        } else {
+            filmStorage.addLike(filmId, userId);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        }
     }
 
     public void removeLike(Integer filmId, Integer userId) {
-        // Проверяем существование пользователя
-        userService.findById(userId);
-        // Проверяем существование фильма
-        findById(filmId);
+        // Проверяем существование пользователя и фильма
+        userService.checkExists(userId);
+        checkExists(filmId);
+
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(new LikeEvent(filmId, userId, false));
+        } else {
+            filmStorage.removeLike(filmId, userId);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} удалил лайк с фильма {}", userId, filmId);
+        }
+    }
 
-        filmStorage.removeLike(filmId, userId);
-        log.info("Пользователь {} удалил лайк с фильма {}", userId, filmId);
+    public LikeBatchResult applyLikes(List<LikeEvent> events) {
+        for (LikeEvent event : events) {
+            if (event == null || event.getFilmId() == null || event.getUserId() == null) {
+                throw new ValidationException("В каждом событии должны быть указаны filmId и userId");
+            }
+        }
+        int applied = filmStorage.applyLikes(events);
+        if (log.isInfoEnabled()) {
+            log.info("Пакетная запись лайков: применено {}, пропущено {}", applied, events.size() - applied);
+        }
+        return new LikeBatchResult(applied, events.size() - applied);
     }
 
-    public List<Film> findPopularFilms(Integer count) {
+    public List<Film> findPopularFilms(Integer count, Integer genreId, Integer year) {
         int filmsCount = count != null ? count : 10;
         if (filmsCount <= 0) {
             throw new ValidationException("Параметр count должен быть положительным числом");
         }
-        List<Film> films = filmStorage.findPopularFilms(filmsCount);
-        loadGenresForFilms(films);
-        return films;
+        return filmStorage.findPopularFilms(filmsCount, genreId, year);
+    }
+
+    public List<Film> searchFilms(String query, String by, Integer limit, boolean tiesByLikes) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Параметр query не может быть пустым");
+        }
+        int resultsLimit = limit != null ? limit : 10;
+        if (resultsLimit <= 0) {
+            throw new ValidationException("Параметр limit должен быть положительным числом");
+        }
+
+        boolean byTitle = false;
+        boolean byDescription = false;
+        for (String field : by.split(",")) {
+            String name = field.trim().toLowerCase();
+            if (name.equals("title")) {
+                byTitle = true;
+            } else if (name.equals("description")) {
+                byDescription = true;
+            } else {
+                throw new ValidationException("Параметр by может содержать только title и description");
+            }
+        }
+        return filmStorage.searchFilms(query, byTitle, byDescription, tiesByLikes, resultsLimit);
+    }
+
+    private String validateForImport(Film film) {
+        String violation = BatchImporter.firstViolation(validator, film);
+        if (violation != null) {
+            return violation;
+        }
+        try {
+            validateFilm(film);
+            validateMpa(film.getMpa());
+            validateGenres(film.getGenres());
+        } catch (ValidationException | NotFoundException e) {
+            return e.getMessage();
+        }
+        return null;
     }
 
     private void validateFilm(Film film) {
@@ -131,8 +216,9 @@ public class FilmService {
         if (mpa.getId() == null) {
             throw new ValidationException("ID рейтинга MPA не может быть пустым");
         }
-
-        mpaService.getMpaById(mpa.getId());
+        if (!mpaStorage.existsById(mpa.getId())) {
+            throw new NotFoundException("Рейтинг MPA с ID " + mpa.getId() + " не найден");
+        }
     }
 
     private void validateGenres(List<Genre> genres) {
@@ -141,45 +227,10 @@ public class FilmService {
                 if (genre.getId() == null) {
                     throw new ValidationException("ID жанра не может быть пустым");
                 }
-
-                genreStorage.getGenreById(genre.getId());
+                if (!genreStorage.existsById(genre.getId())) {
+                    throw new NotFoundException("Жанр с ID " + genre.getId() + " не найден");
+                }
             }
         }
     }
-
-    private void loadGenresForFilms(List<Film> films) {
-        List<Integer> filmIds = films.stream()
-                .map(Film::getId)
-                .collect(Collectors.toList());
-
-        if (filmIds.isEmpty()) {
-            return;
-        }
-
-        // Создаем IN clause с нужным количеством параметров
-        String inClause = String.join(",", Collections.nCopies(filmIds.size(), "?"));
-
-        String sql = String.format(
-                "SELECT fg.film_id, g.id, g.name " +
-                        "FROM film_genres fg " +
-                        "JOIN genres g ON fg.genre_id = g.id " +
-                        "WHERE fg.film_id IN (%s) " +
-                        "ORDER BY fg.film_id, g.id", inClause
-        );
-
-        // Выполняем запрос и маппим результаты
-        Map<Integer, List<Genre>> genresByFilmId = new HashMap<>();
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, filmIds.toArray());
-        for (Map<String, Object> row : rows) {
-            Integer filmId = (Integer) row.get("film_id");
-            Genre genre = new Genre((Integer) row.get("id"), (String) row.get("name"));
-            genresByFilmId.computeIfAbsent(filmId, k -> new ArrayList<>()).add(genre);
-        }
-
-        // Устанавливаем жанры для каждого фильма
-        films.forEach(film -> {
-            List<Genre> genres = genresByFilmId.getOrDefault(film.getId(), new ArrayList<>());
-            film.setGenres(genres);
-        });
-    }
 }
@@ -13,6 +13,10 @@ import java.util.List;
 public class GenreService {
     private final GenreStorage genreStorage;
 
+    public String versionTag() {
+        return genreStorage.versionTag();
+    }
+
     public List<Genre> getAllGenres() {
         return genreStorage.getAllGenres();
     }
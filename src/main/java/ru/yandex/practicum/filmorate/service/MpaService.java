@@ -13,6 +13,10 @@ import java.util.List;
 public class MpaService {
     private final MpaStorage mpaStorage;
 
+    public String versionTag() {
+        return mpaStorage.versionTag();
+    }
+
     public List<Mpa> getAllMpa() {
         return mpaStorage.getAllMpa();
     }
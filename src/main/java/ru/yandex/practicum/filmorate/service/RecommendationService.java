@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikesIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Рекомендации фильмов по схожести лайков (коллаборативная фильтрация).
+ * Похожие пользователи — те, у кого больше всего общих лайков с данным; их фильмы,
+ * которые пользователь ещё не лайкнул, ранжируются по сумме числа общих лайков.
+ * Результат кэшируется и пересчитывается, когда меняются лайки самого пользователя.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+    /**
+     * Сколько поставивших лайк берётся с каждого фильма пользователя при поиске похожих;
+     * у популярных фильмов они выбираются равномерно по всему списку, а не первые по ID
+     */
+    static final int LIKERS_PER_FILM = 1000;
+    static final int SIMILAR_USERS = 20;
+    static final int MAX_RECOMMENDATIONS = 100;
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final int FORK_THRESHOLD = 256;
+
+    private final LikesIndex likesIndex;
+    private final FilmStorage filmStorage;
+    private final UserService userService;
+
+    private final Map<Integer, CachedRecommendations> cache = new ConcurrentHashMap<>();
+
+    public List<Film> findRecommendations(Integer userId, Integer limit) {
+        int recommendationsLimit = limit != null ? limit : 10;
+        if (recommendationsLimit <= 0) {
+            throw new ValidationException("Параметр limit должен быть положительным числом");
+        }
+        userService.checkExists(userId);
+
+        int[] filmIds = recommendedFilmIds(userId);
+        List<Integer> ids = new ArrayList<>(Math.min(filmIds.length, recommendationsLimit));
+        for (int i = 0; i < filmIds.length && i < recommendationsLimit; i++) {
+            ids.add(filmIds[i]);
+        }
+        return filmStorage.findByIds(ids);
+    }
+
+    int[] recommendedFilmIds(int userId) {
+        // Массив лайков подменяется при каждом изменении, поэтому сравнение ссылок отличает устаревший расчёт
+        int[] ownLikes = likesIndex.filmsLikedBy(userId);
+        CachedRecommendations cached = cache.get(userId);
+        if (cached != null && cached.basis() == ownLikes) {
+            return cached.filmIds();
+        }
+
+        int[] filmIds = compute(userId, ownLikes);
+        if (cache.size() >= MAX_CACHED_USERS) {
+            cache.clear();
+        }
+        cache.put(userId, new CachedRecommendations(ownLikes, filmIds));
+        return filmIds;
+    }
+
+    private int[] compute(int userId, int[] ownLikes) {
+        int[] candidates = candidateUsers(userId, ownLikes);
+        if (candidates.length == 0) {
+            return SortedIntArrays.EMPTY;
+        }
+
+        int[] overlaps = new int[candidates.length];
+        ForkJoinPool.commonPool().invoke(new OverlapTask(ownLikes, candidates, overlaps, 0, candidates.length));
+
+        // Минимальная куча по числу общих лайков оставляет SIMILAR_USERS самых похожих
+        PriorityQueue<int[]> similar = new PriorityQueue<>(SIMILAR_USERS + 1, (a, b) ->
+                a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(b[0], a[0]));
+        for (int i = 0; i < candidates.length; i++) {
+            similar.add(new int[]{candidates[i], overlaps[i]});
+            if (similar.size() > SIMILAR_USERS) {
+                similar.poll();
+            }
+        }
+
+        // Пары (фильм, вес) упаковываются в long, чтобы после сортировки просуммировать веса по фильму
+        int[][] neighbours = similar.toArray(new int[0][]);
+        int[][] neighbourLikes = new int[neighbours.length][];
+        int total = 0;
+        for (int n = 0; n < neighbours.length; n++) {
+            neighbourLikes[n] = likesIndex.filmsLikedBy(neighbours[n][0]);
+            total += neighbourLikes[n].length;
+        }
+        long[] weighted = new long[total];
+        int size = 0;
+        for (int n = 0; n < neighbours.length; n++) {
+            for (int filmId : neighbourLikes[n]) {
+                if (!SortedIntArrays.contains(ownLikes, filmId)) {
+                    weighted[size++] = ((long) filmId << 32) | neighbours[n][1];
+                }
+            }
+        }
+        Arrays.sort(weighted, 0, size);
+
+        PriorityQueue<long[]> best = new PriorityQueue<>(MAX_RECOMMENDATIONS + 1, (a, b) ->
+                a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(b[0], a[0]));
+        int i = 0;
+        while (i < size) {
+            long filmId = weighted[i] >>> 32;
+            long score = 0;
+            while (i < size && weighted[i] >>> 32 == filmId) {
+                score += (int) weighted[i];
+                i++;
+            }
+            best.add(new long[]{filmId, score});
+            if (best.size() > MAX_RECOMMENDATIONS) {
+                best.poll();
+            }
+        }
+
+        int[] result = new int[best.size()];
+        for (int position = result.length - 1; position >= 0; position--) {
+            result[position] = (int) best.poll()[0];
+        }
+        return result;
+    }
+
+    /**
+     * Различные пользователи, лайкнувшие хотя бы один фильм пользователя, кроме него самого
+     */
+    private int[] candidateUsers(int userId, int[] ownLikes) {
+        int[][] likers = new int[ownLikes.length][];
+        int total = 0;
+        for (int f = 0; f < ownLikes.length; f++) {
+            likers[f] = sample(likesIndex.usersWhoLiked(ownLikes[f]));
+            total += likers[f].length;
+        }
+        int[] users = new int[total];
+        int size = 0;
+        for (int[] filmLikers : likers) {
+            System.arraycopy(filmLikers, 0, users, size, filmLikers.length);
+            size += filmLikers.length;
+        }
+        Arrays.parallelSort(users);
+
+        int distinct = 0;
+        for (int i = 0; i < users.length; i++) {
+            if (users[i] != userId && (distinct == 0 || users[distinct - 1] != users[i])) {
+                users[distinct++] = users[i];
+            }
+        }
+        return Arrays.copyOf(users, distinct);
+    }
+
+    private static int[] sample(int[] likers) {
+        if (likers.length <= LIKERS_PER_FILM) {
+            return likers;
+        }
+        int[] sampled = new int[LIKERS_PER_FILM];
+        for (int i = 0; i < LIKERS_PER_FILM; i++) {
+            sampled[i] = likers[(int) ((long) i * likers.length / LIKERS_PER_FILM)];
+        }
+        return sampled;
+    }
+
+    private record CachedRecommendations(int[] basis, int[] filmIds) {
+    }
+
+    /**
+     * Считает число общих лайков для диапазона кандидатов, деля его пополам до FORK_THRESHOLD
+     */
+    private final class OverlapTask extends RecursiveAction {
+        private final int[] ownLikes;
+        private final int[] candidates;
+        private final int[] overlaps;
+        private final int from;
+        private final int to;
+
+        OverlapTask(int[] ownLikes, int[] candidates, int[] overlaps, int from, int to) {
+            this.ownLikes = ownLikes;
+            this.candidates = candidates;
+            this.overlaps = overlaps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FORK_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    overlaps[i] = SortedIntArrays.intersectionSize(ownLikes, likesIndex.filmsLikedBy(candidates[i]));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new OverlapTask(ownLikes, candidates, overlaps, from, middle),
+                    new OverlapTask(ownLikes, candidates, overlaps, middle, to));
+        }
+    }
+}
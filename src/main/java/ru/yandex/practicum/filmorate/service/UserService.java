@@ -1,14 +1,17 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
+import java.util.Iterator;
 import java.util.List;
 
 @Service
@@ -16,11 +19,28 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserService {
     private final UserStorage userStorage;
+    private final Validator validator;
 
     public List<User> findAll() {
         return userStorage.findAll();
     }
 
+    public List<User> findPage(Integer afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Параметр limit должен быть положительным числом");
+        }
+        return userStorage.findPage(afterId, limit);
+    }
+
+    /**
+     * Проверяет существование пользователя, не загружая его друзей
+     */
+    public void checkExists(Integer id) {
+        if (!userStorage.existsById(id)) {
+            throw new NotFoundException("Пользователь с ID " + id + " не найден");
+        }
+    }
+
     public User findById(Integer id) {
         return userStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь с ID " + id + " не найден"));
@@ -38,12 +58,19 @@ public class UserService {
         }
     }
 
+    public BatchImportResult importUsers(Iterator<User> users) {
+        BatchImportResult result = BatchImporter.importAll(users, this::prepareForImport, userStorage::saveAll, this::create);
+        log.info("Пакетная загрузка пользователей: создано {}, отклонено {}",
+                result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
     public User update(User user) {
         validateUser(user);
         processUserName(user);
 
         // Проверяем, что пользователь существует
-        findById(user.getId());
+        checkExists(user.getId());
 
         try {
             return userStorage.update(user);
@@ -59,35 +86,67 @@ public class UserService {
         }
 
         // Проверяем существование обоих пользователей
-        findById(userId);
-        findById(friendId);
+        checkAllExist(userId, friendId);
 
         userStorage.addFriend(userId, friendId);
     }
 
     public void removeFriend(Integer userId, Integer friendId) {
         // Проверяем существование обоих пользователей
-        findById(userId);
-        findById(friendId);
+        checkAllExist(userId, friendId);
 
         userStorage.removeFriend(userId, friendId);
     }
 
     public List<User> findFriends(Integer userId) {
         // Проверяем существование пользователя
-        findById(userId);
+        checkExists(userId);
 
         return userStorage.findFriends(userId);
     }
 
     public List<User> findCommonFriends(Integer userId, Integer otherId) {
         // Проверяем существование обоих пользователей
-        findById(userId);
-        findById(otherId);
+        checkAllExist(userId, otherId);
 
         return userStorage.findCommonFriends(userId, otherId);
     }
 
+    public List<User> findFriendSuggestions(Integer userId, Integer limit) {
+        int suggestionsLimit = limit != null ? limit : 10;
+        if (suggestionsLimit <= 0) {
+            throw new ValidationException("Параметр limit должен быть положительным числом");
+        }
+        // Проверяем существование пользователя
+        checkExists(userId);
+
+        return userStorage.findFriendSuggestions(userId, suggestionsLimit);
+    }
+
+    private String prepareForImport(User user) {
+        String violation = BatchImporter.firstViolation(validator, user);
+        if (violation != null) {
+            return violation;
+        }
+        try {
+            validateUser(user);
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+        processUserName(user);
+        return null;
+    }
+
+    /**
+     * Одним запросом проверяет обоих пользователей; отдельные проверки нужны только для текста ошибки
+     */
+    private void checkAllExist(Integer userId, Integer otherId) {
+        if (!userStorage.existsAll(List.of(userId, otherId))) {
+            checkExists(userId);
+            checkExists(otherId);
+        }
+    }
+
     private void processUserName(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Изменения структур в памяти, которые должны стать видны только вместе с данными в БД.
+ * Внутри транзакции действие откладывается до её фиксации и пропадает при откате,
+ * вне транзакции (автофиксация каждого запроса) выполняется сразу.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
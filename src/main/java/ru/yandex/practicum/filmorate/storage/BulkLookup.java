@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Выборка по списку ID через {@code IN (...)}.
+ * Список режется на части фиксированных размеров (степени двойки до {@link #MAX_CHUNK_SIZE}),
+ * неполная часть добивается последним ID. Поэтому текст SQL принимает лишь несколько вариантов
+ * и подготовленные выражения переиспользуются, а число параметров в одном запросе ограничено.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkLookup {
+    public static final int MAX_CHUNK_SIZE = 256;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, String[]> sqlByTemplate = new ConcurrentHashMap<>();
+
+    /**
+     * Выполняет запрос по частям последовательно, в текущей транзакции.
+     *
+     * @param sqlTemplate запрос с одним {@code %s} на месте списка параметров
+     */
+    public void forEachRow(String sqlTemplate, Collection<Integer> ids, RowCallbackHandler handler) {
+        for (Object[] chunk : chunks(ids)) {
+            jdbcTemplate.query(sqlFor(sqlTemplate, chunk.length), handler, chunk);
+        }
+    }
+
+    private List<Object[]> chunks(Collection<Integer> ids) {
+        List<Object[]> chunks = new ArrayList<>((ids.size() + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        Object[] chunk = null;
+        int position = 0;
+        int remaining = ids.size();
+
+        for (Integer id : ids) {
+            if (chunk == null) {
+                chunk = new Object[bucketSize(remaining)];
+                position = 0;
+            }
+            chunk[position++] = id;
+            remaining--;
+            if (position == chunk.length || remaining == 0) {
+                // Добиваем неполную часть последним ID — на результат IN это не влияет
+                for (int i = position; i < chunk.length; i++) {
+                    chunk[i] = id;
+                }
+                chunks.add(chunk);
+                chunk = null;
+            }
+        }
+        return chunks;
+    }
+
+    private static int bucketSize(int remaining) {
+        if (remaining >= MAX_CHUNK_SIZE) {
+            return MAX_CHUNK_SIZE;
+        }
+        return Integer.highestOneBit(remaining) == remaining ? remaining : Integer.highestOneBit(remaining) << 1;
+    }
+
+    private String sqlFor(String sqlTemplate, int bucketSize) {
+        String[] bySize = sqlByTemplate.computeIfAbsent(sqlTemplate,
+                k -> new String[Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE) + 1]);
+        int slot = Integer.numberOfTrailingZeros(bucketSize);
+        String sql = bySize[slot];
+        if (sql == null) {
+            sql = String.format(sqlTemplate, String.join(",", Collections.nCopies(bucketSize, "?")));
+            bySize[slot] = sql;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неизменяемый снимок небольшого справочника (MPA, жанры), проиндексированный массивом по ID.
+ * Поиск по ID не обращается к БД и ничего не выделяет: наружу отдаются сами элементы снимка,
+ * поэтому хранилища кладут в него экземпляры, которые нельзя изменить.
+ * <p>
+ * К снимку привязан и отрицательный кэш — ID, которых не оказалось в БД. Повторные промахи по ним
+ * не доходят до БД, пока справочник не перечитан.
+ */
+public final class DictionaryCache<T> {
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+    // Защита от перебора произвольных ID: переполненный отрицательный кэш просто сбрасывается
+    private static final int MAX_MISSING = 1024;
+
+    private final Object[] byId;
+    private final List<T> all;
+    private final long generation;
+    private final Set<Integer> missing = ConcurrentHashMap.newKeySet();
+
+    private DictionaryCache(Object[] byId, List<T> all, long generation) {
+        this.byId = byId;
+        this.all = all;
+        this.generation = generation;
+    }
+
+    public static <T> DictionaryCache<T> empty() {
+        return new DictionaryCache<>(new Object[0], List.of(), 0);
+    }
+
+    /**
+     * @param items неизменяемые элементы справочника
+     */
+    public static <T> DictionaryCache<T> of(List<T> items, ToIntFunction<T> idExtractor) {
+        int maxId = items.stream().mapToInt(idExtractor).max().orElse(-1);
+        Object[] byId = new Object[maxId + 1];
+        for (T item : items) {
+            byId[idExtractor.applyAsInt(item)] = item;
+        }
+        return new DictionaryCache<>(byId, List.copyOf(items), GENERATIONS.incrementAndGet());
+    }
+
+    public T get(Integer id) {
+        return find(id);
+    }
+
+    public boolean contains(Integer id) {
+        return find(id) != null;
+    }
+
+    public List<T> all() {
+        return all;
+    }
+
+    /**
+     * Запоминает ID, которого нет и в БД
+     */
+    public void markMissing(Integer id) {
+        if (missing.size() >= MAX_MISSING) {
+            missing.clear();
+        }
+        missing.add(id);
+    }
+
+    public boolean isKnownMissing(Integer id) {
+        return missing.contains(id);
+    }
+
+    /**
+     * Номер снимка: у каждого нового снимка он больше, чем у предыдущих
+     */
+    public long generation() {
+        return generation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T find(Integer id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return null;
+        }
+        return (T) byId[id];
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.init.UncategorizedScriptException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Инициализация файловой БД профиля {@code persistent}: schema.sql и data.sql выполняются
+ * только при первом запуске, когда таблицы films ещё нет. При перезапуске на существующем файле
+ * скрипты не выполняются, а данные и счётчики AUTO_INCREMENT остаются как были.
+ * Заменяет стандартный инициализатор Spring Boot, поэтому бины, работающие с БД, как и прежде
+ * создаются только после него.
+ */
+@Slf4j
+@Component
+@Profile("persistent")
+public class ExistingSchemaAwareInitializer extends SqlDataSourceScriptDatabaseInitializer {
+    private static final String MARKER_TABLE = "FILMS";
+
+    private final DataSource dataSource;
+
+    public ExistingSchemaAwareInitializer(DataSource dataSource, SqlInitializationProperties properties) {
+        super(dataSource, properties);
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        if (schemaExists()) {
+            log.info("Схема БД уже создана, инициализация скриптами пропущена");
+            return false;
+        }
+        log.info("БД пуста, выполняются скрипты инициализации");
+        return super.initializeDatabase();
+    }
+
+    private boolean schemaExists() {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet tables = connection.getMetaData()
+                     .getTables(null, null, MARKER_TABLE, new String[]{"TABLE"})) {
+            return tables.next();
+        } catch (SQLException e) {
+            throw new UncategorizedScriptException("Не удалось проверить наличие схемы БД", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Вспомогательная структура в памяти, производная от данных в БД.
+ * База данных остаётся источником истины, индекс можно полностью перестроить по ней.
+ */
+public interface InMemoryIndex {
+    void rebuild();
+}
@@ -0,0 +1,293 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Потокобезопасная хеш-таблица с ключами int: открытая адресация с линейным пробированием,
+ * без упаковки ключей в Integer и без отдельного узла на каждую запись.
+ * Таблица разбита на сегменты со своими {@link StampedLock}: запись блокирует только свой сегмент,
+ * чтение идёт оптимистично без блокировки и повторяется под блокировкой чтения, лишь если
+ * сегмент изменился во время поиска. Значения должны быть неизменяемыми объектами.
+ * Ключ 0 обозначает пустую ячейку, поэтому ключами служат положительные ID.
+ */
+public final class IntObjectMap<V> {
+    private static final int SEGMENTS = 16;
+    private static final int SEGMENT_SHIFT = 4;
+    private static final int FREE = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Доля занятых ячеек, после которой сегмент увеличивается вдвое
+     */
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public IntObjectMap() {
+        segments = (Segment<V>[]) new Segment<?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    public V get(int key) {
+        return segmentFor(key).get(key);
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return прежнее значение или null
+     */
+    public V put(int key, V value) {
+        if (key <= FREE) {
+            throw new IllegalArgumentException("Ключ должен быть положительным: " + key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        return segmentFor(key).put(key, value);
+    }
+
+    /**
+     * @return удалённое значение или null
+     */
+    public V remove(int key) {
+        return segmentFor(key).remove(key);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Отсортированный снимок ключей; каждый сегмент копируется атомарно, но не все сегменты разом
+     */
+    public int[] keys() {
+        int[][] parts = new int[SEGMENTS][];
+        int total = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            parts[i] = segments[i].keys();
+            total += parts[i].length;
+        }
+        int[] keys = new int[total];
+        int position = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, keys, position, part.length);
+            position += part.length;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment<V> segmentFor(int key) {
+        return segments[mix(key) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Перемешивает биты ID: подряд идущие ключи иначе заняли бы соседние ячейки одного сегмента
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int slot(int key, int mask) {
+        return (mix(key) >>> SEGMENT_SHIFT) & mask;
+    }
+
+    /**
+     * Ключи и значения сегмента; при увеличении подменяется целиком, поэтому оптимистичное чтение
+     * всегда видит согласованные по длине массивы
+     */
+    private record Table(int[] keys, Object[] values) {
+
+        Table(int capacity) {
+            this(new int[capacity], new Object[capacity]);
+        }
+
+        int indexOf(int key) {
+            int mask = keys.length - 1;
+            int index = slot(key, mask);
+            // Проб не больше ёмкости: при гонке с записью цикл не зациклится, результат отбросит validate
+            for (int probes = 0; probes < keys.length; probes++) {
+                int current = keys[index];
+                if (current == key) {
+                    return index;
+                }
+                if (current == FREE) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(MIN_CAPACITY);
+        private int size;
+
+        V get(int key) {
+            long stamp = lock.tryOptimisticRead();
+            V value = find(table, key);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        V put(int key, V value) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int index = current.indexOf(key);
+                if (index >= 0) {
+                    V previous = cast(current.values()[index]);
+                    current.values()[index] = value;
+                    return previous;
+                }
+                if (size + 1 > current.keys().length * LOAD_FACTOR) {
+                    current = resize(current);
+                }
+                insert(current, key, value);
+                size++;
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V remove(int key) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int index = current.indexOf(key);
+                if (index < 0) {
+                    return null;
+                }
+                V previous = cast(current.values()[index]);
+                shiftBack(current, index);
+                size--;
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        int[] keys() {
+            long stamp = lock.readLock();
+            try {
+                int[] keys = new int[size];
+                int position = 0;
+                for (int key : table.keys()) {
+                    if (key != FREE) {
+                        keys[position++] = key;
+                    }
+                }
+                return keys;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(MIN_CAPACITY);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private V find(Table current, int key) {
+            int index = current.indexOf(key);
+            return index >= 0 ? cast(current.values()[index]) : null;
+        }
+
+        private Table resize(Table current) {
+            Table resized = new Table(current.keys().length * 2);
+            int[] keys = current.keys();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != FREE) {
+                    insert(resized, keys[i], current.values()[i]);
+                }
+            }
+            table = resized;
+            return resized;
+        }
+
+        private void insert(Table target, int key, Object value) {
+            int[] keys = target.keys();
+            int mask = keys.length - 1;
+            int index = slot(key, mask);
+            while (keys[index] != FREE) {
+                index = (index + 1) & mask;
+            }
+            target.values()[index] = value;
+            keys[index] = key;
+        }
+
+        /**
+         * Удаление без «надгробий»: следующие записи цепочки сдвигаются в освободившуюся ячейку,
+         * если их исходная позиция не лежит между ней и текущим местом записи
+         */
+        private void shiftBack(Table current, int index) {
+            int[] keys = current.keys();
+            Object[] values = current.values();
+            int mask = keys.length - 1;
+            int gap = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                int key = keys[next];
+                if (key == FREE) {
+                    break;
+                }
+                int home = slot(key, mask);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = key;
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = FREE;
+            values[gap] = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V cast(Object value) {
+            return (V) value;
+        }
+    }
+}
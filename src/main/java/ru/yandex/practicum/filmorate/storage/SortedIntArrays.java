@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+
+/**
+ * Операции над отсортированными массивами ID без повторов, которые индексы в памяти
+ * используют как неизменяемые множества: изменение возвращает новый массив.
+ */
+public final class SortedIntArrays {
+    public static final int[] EMPTY = new int[0];
+
+    private SortedIntArrays() {
+    }
+
+    /**
+     * Массив с добавленным значением; если оно уже есть, возвращается исходный массив
+     */
+    public static int[] with(int[] values, int value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return values;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+        return updated;
+    }
+
+    /**
+     * Массив без значения; если его нет, возвращается исходный массив
+     */
+    public static int[] without(int[] values, int value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return values;
+        }
+        int[] updated = new int[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        System.arraycopy(values, position + 1, updated, position, values.length - position - 1);
+        return updated;
+    }
+
+    public static boolean contains(int[] values, int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Пересечение двух массивов
+     */
+    public static int[] intersect(int[] first, int[] second) {
+        if (first.length > second.length) {
+            return intersect(second, first);
+        }
+        int[] result = new int[first.length];
+        int size = intersect(first, second, result);
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Размер пересечения двух массивов, без создания нового
+     */
+    public static int intersectionSize(int[] first, int[] second) {
+        if (first.length > second.length) {
+            return intersectionSize(second, first);
+        }
+        return intersect(first, second, null);
+    }
+
+    private static int intersect(int[] smaller, int[] larger, int[] out) {
+        int size = 0;
+        // Для сильно различающихся по размеру массивов двоичный поиск дешевле слияния
+        if ((long) smaller.length * 32 < larger.length) {
+            int from = 0;
+            for (int value : smaller) {
+                int position = Arrays.binarySearch(larger, from, larger.length, value);
+                if (position >= 0) {
+                    if (out != null) {
+                        out[size] = value;
+                    }
+                    size++;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return size;
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < smaller.length && j < larger.length) {
+            if (smaller[i] < larger[j]) {
+                i++;
+            } else if (smaller[i] > larger[j]) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[size] = smaller[i];
+                }
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+}
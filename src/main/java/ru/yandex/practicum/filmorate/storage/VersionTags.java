@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Метки версий для HTTP ETag. Номер версии дополняется меткой запуска процесса:
+ * счётчики в памяти начинаются заново после перезапуска, и метки прошлого запуска
+ * не должны совпасть с новыми.
+ */
+public final class VersionTags {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private VersionTags() {
+    }
+
+    public static String of(long version) {
+        return EPOCH + "-" + version;
+    }
+}
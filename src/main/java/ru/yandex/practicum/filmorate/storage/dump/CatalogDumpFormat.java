@@ -0,0 +1,322 @@
+package ru.yandex.practicum.filmorate.storage.dump;
+
+import java.time.LocalDate;
+
+/**
+ * Формат двоичной выгрузки каталога.
+ * <p>
+ * Заголовок — {@link #MAGIC} и байт {@link #VERSION}, затем секции в порядке, в котором их можно вставлять
+ * без нарушения внешних ключей: пользователи, фильмы, жанры фильмов, лайки, друзья. Секция начинается
+ * байтом с её номером и состоит из блоков до {@link #BLOCK_ROWS} строк; блок — число строк и столбцы
+ * по очереди, пустой блок завершает секцию. Поток заканчивается байтом {@link #END} и CRC32C всех
+ * предшествующих байтов.
+ * <p>
+ * Строки идут по возрастанию первичного ключа, поэтому идентификаторы и даты хранятся разностью
+ * с предыдущей строкой (zigzag varint), а в парах второй идентификатор — разностью с предыдущим
+ * в пределах того же первого. Разности продолжаются через границы блоков.
+ */
+final class CatalogDumpFormat {
+    static final int MAGIC = 0x46434154;
+    static final int VERSION = 1;
+
+    static final int END = 0;
+    static final int USERS = 1;
+    static final int FILMS = 2;
+    static final int FILM_GENRES = 3;
+    static final int FILM_LIKES = 4;
+    static final int FRIENDS = 5;
+
+    static final int BLOCK_ROWS = 4096;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long MIN_EPOCH_DAY = LocalDate.MIN.toEpochDay();
+    private static final long MAX_EPOCH_DAY = LocalDate.MAX.toEpochDay();
+
+    private CatalogDumpFormat() {
+    }
+
+    /**
+     * Блок пользователей: id, email, login, name, birthday (день эпохи)
+     */
+    static final class UserBlock {
+        final int[] ids = new int[BLOCK_ROWS];
+        final String[] emails = new String[BLOCK_ROWS];
+        final String[] logins = new String[BLOCK_ROWS];
+        final String[] names = new String[BLOCK_ROWS];
+        final long[] birthdays = new long[BLOCK_ROWS];
+        int size;
+
+        private int lastId;
+        private long lastBirthday;
+
+        /**
+         * @return true, если блок заполнен и его пора записать
+         */
+        boolean add(int id, String email, String login, String name, long birthday) {
+            ids[size] = id;
+            emails[size] = email;
+            logins[size] = login;
+            names[size] = name;
+            birthdays[size] = birthday;
+            return ++size == BLOCK_ROWS;
+        }
+
+        void write(VarIntOutput out) {
+            if (size == 0) {
+                return;
+            }
+            out.writeVarInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeSignedVarLong((long) ids[i] - lastId);
+                lastId = ids[i];
+            }
+            writeStrings(out, emails, size);
+            writeStrings(out, logins, size);
+            writeStrings(out, names, size);
+            for (int i = 0; i < size; i++) {
+                out.writeSignedVarLong(birthdays[i] - lastBirthday);
+                lastBirthday = birthdays[i];
+            }
+            size = 0;
+        }
+
+        /**
+         * @return false, если вместо блока встретился конец секции
+         */
+        boolean read(VarIntInput in) {
+            size = readSize(in);
+            if (size == 0) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                lastId = toId(lastId + in.readSignedVarLong());
+                ids[i] = lastId;
+            }
+            readStrings(in, emails, size);
+            readStrings(in, logins, size);
+            readStrings(in, names, size);
+            for (int i = 0; i < size; i++) {
+                lastBirthday = toDay(lastBirthday + in.readSignedVarLong());
+                birthdays[i] = lastBirthday;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Блок фильмов: id, name, description, release_date (день эпохи), duration, mpa_id, likes_count, version
+     */
+    static final class FilmBlock {
+        final int[] ids = new int[BLOCK_ROWS];
+        final String[] names = new String[BLOCK_ROWS];
+        final String[] descriptions = new String[BLOCK_ROWS];
+        final long[] releaseDays = new long[BLOCK_ROWS];
+        final int[] durations = new int[BLOCK_ROWS];
+        final int[] mpaIds = new int[BLOCK_ROWS];
+        final int[] likesCounts = new int[BLOCK_ROWS];
+        final long[] versions = new long[BLOCK_ROWS];
+        int size;
+
+        private int lastId;
+        private long lastReleaseDay;
+
+        boolean add(int id, String name, String description, long releaseDay, int duration, int mpaId,
+                    int likesCount, long version) {
+            ids[size] = id;
+            names[size] = name;
+            descriptions[size] = description;
+            releaseDays[size] = releaseDay;
+            durations[size] = duration;
+            mpaIds[size] = mpaId;
+            likesCounts[size] = likesCount;
+            versions[size] = version;
+            return ++size == BLOCK_ROWS;
+        }
+
+        void write(VarIntOutput out) {
+            if (size == 0) {
+                return;
+            }
+            out.writeVarInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeSignedVarLong((long) ids[i] - lastId);
+                lastId = ids[i];
+            }
+            writeStrings(out, names, size);
+            writeStrings(out, descriptions, size);
+            for (int i = 0; i < size; i++) {
+                out.writeSignedVarLong(releaseDays[i] - lastReleaseDay);
+                lastReleaseDay = releaseDays[i];
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeVarInt(durations[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeVarInt(mpaIds[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeVarInt(likesCounts[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeVarLong(versions[i]);
+            }
+            size = 0;
+        }
+
+        boolean read(VarIntInput in) {
+            size = readSize(in);
+            if (size == 0) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                lastId = toId(lastId + in.readSignedVarLong());
+                ids[i] = lastId;
+            }
+            readStrings(in, names, size);
+            readStrings(in, descriptions, size);
+            for (int i = 0; i < size; i++) {
+                lastReleaseDay = toDay(lastReleaseDay + in.readSignedVarLong());
+                releaseDays[i] = lastReleaseDay;
+            }
+            for (int i = 0; i < size; i++) {
+                durations[i] = in.readVarInt();
+            }
+            for (int i = 0; i < size; i++) {
+                mpaIds[i] = in.readVarInt();
+            }
+            for (int i = 0; i < size; i++) {
+                likesCounts[i] = in.readVarInt();
+            }
+            for (int i = 0; i < size; i++) {
+                versions[i] = in.readVarLong();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Блок пар идентификаторов (жанры фильмов, лайки, друзья), при необходимости с признаком на строку
+     */
+    static final class PairBlock {
+        final int[] firsts = new int[BLOCK_ROWS];
+        final int[] seconds = new int[BLOCK_ROWS];
+        final boolean[] flags;
+        int size;
+
+        private int lastFirst;
+        private int lastSecond;
+
+        PairBlock(boolean withFlags) {
+            flags = withFlags ? new boolean[BLOCK_ROWS] : null;
+        }
+
+        boolean add(int first, int second) {
+            return add(first, second, false);
+        }
+
+        boolean add(int first, int second, boolean flag) {
+            firsts[size] = first;
+            seconds[size] = second;
+            if (flags != null) {
+                flags[size] = flag;
+            }
+            return ++size == BLOCK_ROWS;
+        }
+
+        void write(VarIntOutput out) {
+            if (size == 0) {
+                return;
+            }
+            out.writeVarInt(size);
+            int previous = lastFirst;
+            for (int i = 0; i < size; i++) {
+                out.writeSignedVarLong((long) firsts[i] - previous);
+                previous = firsts[i];
+            }
+            for (int i = 0; i < size; i++) {
+                long base = firsts[i] == lastFirst ? lastSecond : 0;
+                out.writeSignedVarLong(seconds[i] - base);
+                lastFirst = firsts[i];
+                lastSecond = seconds[i];
+            }
+            if (flags != null) {
+                for (int from = 0; from < size; from += Byte.SIZE) {
+                    int bits = 0;
+                    for (int i = from; i < Math.min(from + Byte.SIZE, size); i++) {
+                        bits |= flags[i] ? 1 << (i - from) : 0;
+                    }
+                    out.writeByte(bits);
+                }
+            }
+            size = 0;
+        }
+
+        boolean read(VarIntInput in) {
+            size = readSize(in);
+            if (size == 0) {
+                return false;
+            }
+            int previous = lastFirst;
+            for (int i = 0; i < size; i++) {
+                previous = toId(previous + in.readSignedVarLong());
+                firsts[i] = previous;
+            }
+            for (int i = 0; i < size; i++) {
+                long base = firsts[i] == lastFirst ? lastSecond : 0;
+                seconds[i] = toId(base + in.readSignedVarLong());
+                lastFirst = firsts[i];
+                lastSecond = seconds[i];
+            }
+            if (flags != null) {
+                for (int from = 0; from < size; from += Byte.SIZE) {
+                    int bits = in.readByte();
+                    for (int i = from; i < Math.min(from + Byte.SIZE, size); i++) {
+                        flags[i] = (bits & 1 << (i - from)) != 0;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Пустой блок — конец секции
+     */
+    static void endSection(VarIntOutput out) {
+        out.writeVarInt(0);
+    }
+
+    private static void writeStrings(VarIntOutput out, String[] column, int size) {
+        for (int i = 0; i < size; i++) {
+            out.writeString(column[i]);
+        }
+    }
+
+    private static void readStrings(VarIntInput in, String[] column, int size) {
+        for (int i = 0; i < size; i++) {
+            column[i] = in.readString();
+        }
+    }
+
+    private static int readSize(VarIntInput in) {
+        int size = in.readVarInt();
+        if (size > BLOCK_ROWS) {
+            throw VarIntInput.malformed("блок из " + size + " строк");
+        }
+        return size;
+    }
+
+    private static long toDay(long epochDay) {
+        if (epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+            throw VarIntInput.malformed("дата вне диапазона");
+        }
+        return epochDay;
+    }
+
+    private static int toId(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw VarIntInput.malformed("идентификатор вне диапазона");
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.dump;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.CatalogDumpSummary;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogDumpFormat.FilmBlock;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogDumpFormat.PairBlock;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogDumpFormat.UserBlock;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Выгрузка каталога в формате {@link CatalogDumpFormat}.
+ * Таблицы читаются курсором по первичному ключу в одной транзакции, поэтому выгрузка согласована,
+ * а в памяти одновременно держится только один блок строк и буфер канала.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogExporter {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CatalogDumpSummary export(WritableByteChannel channel) {
+        VarIntOutput out = new VarIntOutput(channel, CatalogDumpFormat.BUFFER_SIZE);
+        out.writeFixedInt(CatalogDumpFormat.MAGIC);
+        out.writeByte(CatalogDumpFormat.VERSION);
+
+        int users = exportUsers(out);
+        int films = exportFilms(out);
+        int filmGenres = exportPairs(out, CatalogDumpFormat.FILM_GENRES, false,
+                "SELECT film_id, genre_id FROM film_genres ORDER BY film_id, genre_id");
+        int filmLikes = exportPairs(out, CatalogDumpFormat.FILM_LIKES, false,
+                "SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id");
+        int friends = exportPairs(out, CatalogDumpFormat.FRIENDS, true,
+                "SELECT user_id, friend_id, confirmed FROM friends ORDER BY user_id, friend_id");
+
+        out.writeByte(CatalogDumpFormat.END);
+        long bytes = out.finish();
+        log.info("Каталог выгружен: {} пользователей, {} фильмов, {} лайков, {} байт", users, films, filmLikes, bytes);
+        return new CatalogDumpSummary(users, films, filmGenres, filmLikes, friends);
+    }
+
+    private int exportUsers(VarIntOutput out) {
+        out.writeByte(CatalogDumpFormat.USERS);
+        UserBlock block = new UserBlock();
+        int[] rows = new int[1];
+        jdbcTemplate.query("SELECT id, email, login, name, birthday FROM users ORDER BY id", rs -> {
+            rows[0]++;
+            if (block.add(rs.getInt("id"), rs.getString("email"), rs.getString("login"), rs.getString("name"),
+                    rs.getDate("birthday").toLocalDate().toEpochDay())) {
+                block.write(out);
+            }
+        });
+        block.write(out);
+        CatalogDumpFormat.endSection(out);
+        return rows[0];
+    }
+
+    private int exportFilms(VarIntOutput out) {
+        out.writeByte(CatalogDumpFormat.FILMS);
+        FilmBlock block = new FilmBlock();
+        int[] rows = new int[1];
+        jdbcTemplate.query("SELECT id, name, description, release_date, duration, mpa_id, likes_count, version " +
+                "FROM films ORDER BY id", rs -> {
+            rows[0]++;
+            if (block.add(rs.getInt("id"), rs.getString("name"), rs.getString("description"),
+                    rs.getDate("release_date").toLocalDate().toEpochDay(), rs.getInt("duration"),
+                    rs.getInt("mpa_id"), rs.getInt("likes_count"), rs.getLong("version"))) {
+                block.write(out);
+            }
+        });
+        block.write(out);
+        CatalogDumpFormat.endSection(out);
+        return rows[0];
+    }
+
+    private int exportPairs(VarIntOutput out, int section, boolean withFlag, String sql) {
+        out.writeByte(section);
+        PairBlock block = new PairBlock(withFlag);
+        int[] rows = new int[1];
+        jdbcTemplate.query(sql, rs -> {
+            rows[0]++;
+            if (block.add(rs.getInt(1), rs.getInt(2), withFlag && rs.getBoolean(3))) {
+                block.write(out);
+            }
+        });
+        block.write(out);
+        CatalogDumpFormat.endSection(out);
+        return rows[0];
+    }
+}
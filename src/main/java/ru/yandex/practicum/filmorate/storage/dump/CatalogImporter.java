@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.storage.dump;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CatalogDumpSummary;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogDumpFormat.FilmBlock;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogDumpFormat.PairBlock;
+import ru.yandex.practicum.filmorate.storage.dump.CatalogDumpFormat.UserBlock;
+
+import java.nio.channels.ReadableByteChannel;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Загрузка выгрузки {@link CatalogExporter} в пустую БД.
+ * Каждый прочитанный блок вставляется одним пакетом JDBC; вся загрузка — одна транзакция,
+ * поэтому обрыв файла, несовпадение контрольной суммы или нарушение ограничений откатывают её целиком.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogImporter {
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_FILM = "INSERT INTO films " +
+            "(id, name, description, release_date, duration, mpa_id, likes_count, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_FILM_GENRE = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
+    private static final String INSERT_FILM_LIKE = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
+    private static final String INSERT_FRIEND =
+            "INSERT INTO friends (user_id, friend_id, confirmed) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public CatalogDumpSummary importFrom(ReadableByteChannel channel) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM users) + (SELECT COUNT(*) FROM films)", Integer.class);
+        if (existing != null && existing > 0) {
+            throw new ValidationException("Загрузить каталог можно только в пустую БД");
+        }
+
+        VarIntInput in = new VarIntInput(channel, CatalogDumpFormat.BUFFER_SIZE);
+        if (in.readFixedInt() != CatalogDumpFormat.MAGIC) {
+            throw VarIntInput.malformed("неизвестный заголовок");
+        }
+        int version = in.readByte();
+        if (version != CatalogDumpFormat.VERSION) {
+            throw VarIntInput.malformed("неподдерживаемая версия " + version);
+        }
+
+        // Секции идут строго в порядке выгрузки: так вставки не нарушают внешних ключей
+        int users = importUsers(in);
+        int films = importFilms(in);
+        int filmGenres = importPairs(in, CatalogDumpFormat.FILM_GENRES, INSERT_FILM_GENRE, false);
+        int filmLikes = importPairs(in, CatalogDumpFormat.FILM_LIKES, INSERT_FILM_LIKE, false);
+        int friends = importPairs(in, CatalogDumpFormat.FRIENDS, INSERT_FRIEND, true);
+        expectSection(in, CatalogDumpFormat.END);
+        in.verifyChecksum();
+
+        // ALTER TABLE в H2 фиксирует транзакцию, поэтому счётчики сдвигаются последними, после всех проверок
+        restartIdentity("films");
+        restartIdentity("users");
+
+        log.info("Каталог загружен: {} пользователей, {} фильмов, {} лайков", users, films, filmLikes);
+        return new CatalogDumpSummary(users, films, filmGenres, filmLikes, friends);
+    }
+
+    private int importUsers(VarIntInput in) {
+        expectSection(in, CatalogDumpFormat.USERS);
+        UserBlock block = new UserBlock();
+        int rows = 0;
+        while (block.read(in)) {
+            jdbcTemplate.batchUpdate(INSERT_USER, new BlockSetter(block.size) {
+                @Override
+                public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                    stmt.setInt(1, block.ids[i]);
+                    stmt.setString(2, block.emails[i]);
+                    stmt.setString(3, block.logins[i]);
+                    stmt.setString(4, block.names[i]);
+                    stmt.setDate(5, Date.valueOf(LocalDate.ofEpochDay(block.birthdays[i])));
+                }
+            });
+            rows += block.size;
+        }
+        return rows;
+    }
+
+    private int importFilms(VarIntInput in) {
+        expectSection(in, CatalogDumpFormat.FILMS);
+        FilmBlock block = new FilmBlock();
+        int rows = 0;
+        while (block.read(in)) {
+            jdbcTemplate.batchUpdate(INSERT_FILM, new BlockSetter(block.size) {
+                @Override
+                public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                    stmt.setInt(1, block.ids[i]);
+                    stmt.setString(2, block.names[i]);
+                    stmt.setString(3, block.descriptions[i]);
+                    stmt.setDate(4, Date.valueOf(LocalDate.ofEpochDay(block.releaseDays[i])));
+                    stmt.setInt(5, block.durations[i]);
+                    stmt.setInt(6, block.mpaIds[i]);
+                    stmt.setInt(7, block.likesCounts[i]);
+                    stmt.setLong(8, block.versions[i]);
+                }
+            });
+            rows += block.size;
+        }
+        return rows;
+    }
+
+    private int importPairs(VarIntInput in, int section, String sql, boolean withFlag) {
+        expectSection(in, section);
+        PairBlock block = new PairBlock(withFlag);
+        int rows = 0;
+        while (block.read(in)) {
+            jdbcTemplate.batchUpdate(sql, new BlockSetter(block.size) {
+                @Override
+                public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                    stmt.setInt(1, block.firsts[i]);
+                    stmt.setInt(2, block.seconds[i]);
+                    if (withFlag) {
+                        stmt.setBoolean(3, block.flags[i]);
+                    }
+                }
+            });
+            rows += block.size;
+        }
+        return rows;
+    }
+
+    private static void expectSection(VarIntInput in, int section) {
+        int actual = in.readByte();
+        if (actual != section) {
+            throw VarIntInput.malformed("ожидалась секция " + section + ", а не " + actual);
+        }
+    }
+
+    private void restartIdentity(String table) {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Integer.class);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId + 1));
+    }
+
+    /**
+     * Пакет из всех строк прочитанного блока
+     */
+    private abstract static class BlockSetter implements BatchPreparedStatementSetter {
+        private final int size;
+
+        BlockSetter(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int getBatchSize() {
+            return size;
+        }
+    }
+}
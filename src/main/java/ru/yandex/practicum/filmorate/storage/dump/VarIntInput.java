@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage.dump;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Чтение того, что записал {@link VarIntOutput}, из канала через буфер фиксированного размера.
+ * Прочитанные байты учитываются в контрольной сумме, которую в конце сверяет {@link #verifyChecksum()}.
+ * Обрыв или порча данных сообщаются {@link ValidationException}.
+ */
+final class VarIntInput {
+    /**
+     * Самые длинные строки каталога — 255 символов, так что большая длина означает испорченный файл
+     */
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * Позиция в буфере, с которой прочитанные байты ещё не учтены в контрольной сумме
+     */
+    private int checksumFrom;
+
+    VarIntInput(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).flip();
+    }
+
+    int readByte() {
+        require(1);
+        return buffer.get() & 0xFF;
+    }
+
+    int readFixedInt() {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    int readVarInt() {
+        long value = readVarLong();
+        if (value > 0xFFFFFFFFL) {
+            throw malformed("число не помещается в int");
+        }
+        return (int) value;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int next = readByte();
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw malformed("слишком длинное число");
+    }
+
+    long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length - 1 > MAX_STRING_BYTES) {
+            throw malformed("строка длиной " + Integer.toUnsignedLong(length - 1) + " байт");
+        }
+        byte[] bytes = new byte[length - 1];
+        int offset = 0;
+        while (offset < bytes.length) {
+            require(1);
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Сверяет контрольную сумму прочитанного с записанной в конце потока
+     */
+    void verifyChecksum() {
+        updateChecksum();
+        int actual = (int) checksum.getValue();
+        if (readFixedInt() != actual) {
+            throw malformed("контрольная сумма не совпадает");
+        }
+    }
+
+    static ValidationException malformed(String reason) {
+        return new ValidationException("Некорректный файл выгрузки каталога: " + reason);
+    }
+
+    private void require(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        updateChecksum();
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    buffer.flip();
+                    throw malformed("файл обрывается");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать выгрузку каталога", e);
+        }
+        buffer.flip();
+        checksumFrom = 0;
+    }
+
+    private void updateChecksum() {
+        checksum.update(buffer.slice(checksumFrom, buffer.position() - checksumFrom));
+        checksumFrom = buffer.position();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage.dump;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Запись чисел переменной длины (7 бит на байт, старший бит — признак продолжения) и строк
+ * в канал через буфер фиксированного размера. Контрольная сумма считается по всем записанным байтам
+ * и дописывается в конец потока методом {@link #finish()}.
+ */
+final class VarIntOutput {
+    private static final int MAX_VARLONG_BYTES = 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32C checksum = new CRC32C();
+    private long written;
+
+    VarIntOutput(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void writeFixedInt(int value) {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Значение трактуется как беззнаковое: небольшие неотрицательные числа занимают 1–2 байта
+     */
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeVarLong(long value) {
+        ensure(MAX_VARLONG_BYTES);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Число со знаком в кодировке zigzag: небольшие по модулю отрицательные тоже занимают мало байтов
+     */
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Длина в байтах UTF-8, увеличенная на единицу (0 — null), и сами байты
+     */
+    void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Дописывает контрольную сумму и отправляет остаток буфера в канал
+     *
+     * @return размер потока в байтах
+     */
+    long finish() {
+        drain();
+        writeFully(ByteBuffer.allocate(Integer.BYTES).putInt((int) checksum.getValue()).flip());
+        return written;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                written += channel.write(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать выгрузку каталога", e);
+        }
+    }
+}
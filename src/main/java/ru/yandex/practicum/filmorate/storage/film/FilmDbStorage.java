@@ -2,14 +2,23 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.AfterCommit;
+import ru.yandex.practicum.filmorate.storage.BulkLookup;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -20,55 +29,144 @@ import java.util.stream.Collectors;
 
 @Component
 @Primary
+@Profile("!in-memory")
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final LikesIndex likesIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FilmVersions filmVersions;
+    private final LikeCounters likeCounters;
+
+    private final BulkLookup bulkLookup;
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+
+    private static final String INSERT_FILM =
+            "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+    // Уже существующий лайк не ломает пакет и не считается изменением: вставляются только новые пары
+    private static final String MERGE_LIKE =
+            "MERGE INTO film_likes fl " +
+                    "USING (SELECT f.id AS film_id, u.id AS user_id FROM films f JOIN users u ON u.id = ? " +
+                    "WHERE f.id = ?) s " +
+                    "ON fl.film_id = s.film_id AND fl.user_id = s.user_id " +
+                    "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)";
+    private static final String ADD_LIKES_COUNT =
+            "UPDATE films SET likes_count = likes_count + ?, version = version + 1 WHERE id = ?";
+    private static final String SELECT_FILMS =
+            "SELECT f.*, m.name as mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_id = m.id";
+    private static final String SELECT_ALL_GENRES =
+            "SELECT fg.film_id, g.id, g.name FROM film_genres fg JOIN genres g ON fg.genre_id = g.id";
+    private static final String SELECT_GENRES_BY_FILM_IDS =
+            SELECT_ALL_GENRES + " WHERE fg.film_id IN (%s) ORDER BY fg.film_id, g.id";
 
     @Override
     public List<Film> findAll() {
-        String sql = "SELECT f.*, m.name as mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_id = m.id";
-        return jdbcTemplate.query(sql, this::mapRowToFilm);
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS, this::mapRowToFilm);
+        loadGenresForAllFilms(films);
+        return films;
     }
 
     @Override
     public Optional<Film> findById(Integer id) {
-        String sql = "SELECT f.*, m.name as mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_id = m.id WHERE f.id = ?";
-        List<Film> results = jdbcTemplate.query(sql, this::mapRowToFilm, id);
+        String sql = SELECT_FILMS + " WHERE f.id = ?";
+        List<Film> results = hydrate(jdbcTemplate.query(sql, this::mapRowToFilm, id));
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
 
     @Override
-    public Film save(Film film) {
-        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+    public boolean existsById(Integer id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM films WHERE id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return true;
+        }
+        int[] found = new int[1];
+        bulkLookup.forEachRow("SELECT COUNT(*) FROM films WHERE id IN (%s)", distinctIds,
+                rs -> found[0] += rs.getInt(1));
+        return found[0] == distinctIds.size();
+    }
 
+    @Override
+    public List<Film> findPage(Integer afterId, int limit) {
+        String sql = SELECT_FILMS + " WHERE f.id > ? ORDER BY f.id LIMIT ?";
+        return hydrate(jdbcTemplate.query(sql, this::mapRowToFilm, afterId != null ? afterId : 0, limit));
+    }
+
+    @Override
+    @Transactional
+    public Film save(Film film) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sql, new String[]{"id"});
-            stmt.setString(1, film.getName());
-            stmt.setString(2, film.getDescription());
-            stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
-            stmt.setInt(4, film.getDuration());
-            stmt.setInt(5, film.getMpa().getId());
+            PreparedStatement stmt = connection.prepareStatement(INSERT_FILM, new String[]{"id"});
+            setFilmParameters(stmt, film);
             return stmt;
         }, keyHolder);
 
         film.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
 
-        // Обновляем жанры только если они есть
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            updateFilmGenres(film);
+        // У нового фильма жанров ещё нет — только вставка
+        Set<Integer> genreIds = uniqueGenreIds(film);
+        insertFilmGenres(film.getId(), genreIds);
+        putIndexed(film, genreIds);
+        int filmId = film.getId();
+        AfterCommit.run(() -> filmVersions.register(filmId));
+
+        return hydrateSaved(film);
+    }
+
+    @Override
+    @Transactional
+    public void saveAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
         }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        // Загружаем полную информацию о MPA
-        film.setMpa(getMpaById(film.getMpa().getId()));
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_FILM, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                        setFilmParameters(stmt, films.get(i));
+                    }
 
-        return film;
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> genreRows = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            uniqueGenreIds(film).forEach(genreId -> genreRows.add(new Object[]{film.getId(), genreId}));
+        }
+
+        // Жанры всех фильмов пакета вставляются одним пакетом
+        if (!genreRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+        }
+        films.forEach(film -> putIndexed(film, uniqueGenreIds(film)));
+        List<Integer> filmIds = films.stream().map(Film::getId).collect(Collectors.toList());
+        AfterCommit.run(() -> filmIds.forEach(filmVersions::register));
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
-        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
+        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ?, " +
+                "version = version + 1 WHERE id = ?";
         int updated = jdbcTemplate.update(sql,
                 film.getName(),
                 film.getDescription(),
@@ -84,51 +182,243 @@ public class FilmDbStorage implements FilmStorage {
 
         // Обновляем жанры
         updateFilmGenres(film);
+        putIndexed(film, uniqueGenreIds(film));
+        int filmId = film.getId();
+        AfterCommit.run(() -> filmVersions.touch(filmId));
 
-        // Загружаем полную информацию о MPA
-        film.setMpa(getMpaById(film.getMpa().getId()));
-
-        return film;
+        return hydrateSaved(film);
     }
 
     @Override
     public void delete(Integer id) {
         String sql = "DELETE FROM films WHERE id = ?";
         jdbcTemplate.update(sql, id);
+        AfterCommit.run(() -> {
+            popularFilmsIndex.removeFilm(id);
+            likesIndex.removeFilm(id);
+            searchIndex.removeFilm(id);
+            filmVersions.remove(id);
+            likeCounters.removeFilm(id);
+        });
     }
 
     @Override
+    @Transactional
     public void addLike(Integer filmId, Integer userId) {
         String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, filmId, userId);
+
+        countLikes(filmId, 1);
+        AfterCommit.run(() -> likesIndex.addLike(filmId, userId));
     }
 
     @Override
+    @Transactional
     public void removeLike(Integer filmId, Integer userId) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        int deleted = jdbcTemplate.update(sql, filmId, userId);
+
+        if (deleted > 0) {
+            countLikes(filmId, -1);
+            AfterCommit.run(() -> likesIndex.removeLike(filmId, userId));
+        }
     }
 
     @Override
-    public List<Film> findPopularFilms(int count) {
-        String sql = "SELECT f.*, m.name as mpa_name, COUNT(fl.user_id) as likes_count " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                "GROUP BY f.id, m.name " +
-                "ORDER BY COUNT(fl.user_id) DESC " +
-                "LIMIT ?";
+    @Transactional
+    public int applyLikes(List<LikeEvent> events) {
+        // Схлопываем события: для пары фильм-пользователь важно только последнее
+        Map<Long, LikeEvent> latest = new LinkedHashMap<>();
+        for (LikeEvent event : events) {
+            latest.put(((long) event.getFilmId() << 32) | (event.getUserId() & 0xffffffffL), event);
+        }
+
+        List<LikeEvent> likes = new ArrayList<>();
+        List<LikeEvent> unlikes = new ArrayList<>();
+        latest.values().forEach(event -> (event.isLiked() ? likes : unlikes).add(event));
+
+        Map<Integer, Integer> deltas = new HashMap<>();
+        List<LikeEvent> changed = new ArrayList<>();
+        if (!likes.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(MERGE_LIKE, likes.stream()
+                    .map(event -> new Object[]{event.getUserId(), event.getFilmId()})
+                    .collect(Collectors.toList()));
+            collectDeltas(likes, counts, 1, deltas, changed);
+        }
+        if (!unlikes.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?",
+                    unlikes.stream()
+                            .map(event -> new Object[]{event.getFilmId(), event.getUserId()})
+                            .collect(Collectors.toList()));
+            collectDeltas(unlikes, counts, -1, deltas, changed);
+        }
+        int applied = changed.size();
+        AfterCommit.run(() -> changed.forEach(event -> {
+            if (event.isLiked()) {
+                likesIndex.addLike(event.getFilmId(), event.getUserId());
+            } else {
+                likesIndex.removeLike(event.getFilmId(), event.getUserId());
+            }
+        }));
 
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, count);
+        if (deltas.isEmpty()) {
+            return applied;
+        }
+        if (likeCounters.isEnabled()) {
+            AfterCommit.run(() -> deltas.forEach(likeCounters::add));
+            return applied;
+        }
+        jdbcTemplate.batchUpdate(ADD_LIKES_COUNT, deltas.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .collect(Collectors.toList()));
+        AfterCommit.run(() -> deltas.forEach((filmId, delta) -> {
+            popularFilmsIndex.changeLikes(filmId, delta);
+            filmVersions.touch(filmId);
+        }));
+        return applied;
+    }
 
-        // Загружаем жанры для каждого фильма
+    /**
+     * Меняет счётчик лайков фильма. Без горячих счётчиков он обновляется в той же транзакции,
+     * что и сам лайк; с ними разность после фиксации копится в {@link LikeCounters} и попадает в БД
+     * при очередном сбросе.
+     */
+    private void countLikes(int filmId, int delta) {
+        if (likeCounters.isEnabled()) {
+            AfterCommit.run(() -> likeCounters.add(filmId, delta));
+            return;
+        }
+        jdbcTemplate.update(ADD_LIKES_COUNT, delta, filmId);
+        AfterCommit.run(() -> {
+            popularFilmsIndex.changeLikes(filmId, delta);
+            filmVersions.touch(filmId);
+        });
+    }
+
+    private void collectDeltas(List<LikeEvent> events, int[] counts, int sign, Map<Integer, Integer> deltas,
+                               List<LikeEvent> changed) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                LikeEvent event = events.get(i);
+                deltas.merge(event.getFilmId(), sign, Integer::sum);
+                changed.add(event);
+            }
+        }
+    }
+
+    @Override
+    public List<Film> findByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Film> filmsById = loadFilms(ids);
+        List<Film> films = ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return hydrate(films);
+    }
+
+    @Override
+    public String versionTag(Integer id) {
+        return filmVersions.tagOf(id);
+    }
+
+    @Override
+    public String catalogVersionTag() {
+        return filmVersions.catalogTag();
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, boolean byTitle, boolean byDescription, boolean tiesByLikes,
+                                  int limit) {
+        // Ранжирование целиком в памяти, из БД одним пакетным запросом читаются только найденные фильмы
+        List<Integer> filmIds = searchIndex.search(query, byTitle, byDescription, limit,
+                tiesByLikes ? popularFilmsIndex::likesOf : null);
+        return findByIds(filmIds);
+    }
+
+    @Override
+    public List<Film> findPopularFilms(int count, Integer genreId, Integer year) {
+        // Порядок берём из индекса в памяти, из БД читаем только сами фильмы
+        List<Integer> filmIds = popularFilmsIndex.top(count, genreId, year);
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Film> filmsById = loadFilms(filmIds);
+
+        // Фильм может быть удалён из БД, но ещё не из индекса: индекс догонит БД после фиксации,
+        // поэтому такие ID только пропускаем и добираем выборку следующими по рейтингу
+        int missing = filmIds.size() - filmsById.size();
+        if (missing > 0 && filmIds.size() == count) {
+            filmIds = popularFilmsIndex.top(count + missing, genreId, year);
+            filmsById = loadFilms(filmIds);
+        }
+
+        List<Film> films = filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .limit(count)
+                .collect(Collectors.toList());
+
+        return hydrate(films);
+    }
+
+    private Map<Integer, Film> loadFilms(Collection<Integer> ids) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        bulkLookup.forEachRow(SELECT_FILMS + " WHERE f.id IN (%s)", ids, rs -> {
+            Film film = mapRowToFilm(rs, 0);
+            filmsById.put(film.getId(), film);
+        });
+        return filmsById;
+    }
+
+    /**
+     * Дозагружает жанры для списка фильмов одним запросом.
+     * MPA и количество лайков уже прочитаны вместе со строкой фильма.
+     */
+    private List<Film> hydrate(List<Film> films) {
         if (!films.isEmpty()) {
             loadGenresForFilms(films);
         }
-
         return films;
     }
 
+    /**
+     * Кладёт фильм в индексы в памяти после фиксации транзакции, в которой он записан
+     */
+    private void putIndexed(Film film, Set<Integer> genreIds) {
+        int filmId = film.getId();
+        int releaseYear = film.getReleaseDate().getYear();
+        String name = film.getName();
+        String description = film.getDescription();
+        AfterCommit.run(() -> {
+            popularFilmsIndex.putFilm(filmId, releaseYear, genreIds);
+            searchIndex.putFilm(filmId, name, description);
+        });
+    }
+
+    /**
+     * Приводит только что сохранённый фильм к тому же виду, что и при чтении из БД
+     */
+    private Film hydrateSaved(Film film) {
+        // Справочники берутся из кэша, дополнительных запросов к БД нет
+        film.setMpa(mpaStorage.getMpaById(film.getMpa().getId()).orElse(film.getMpa()));
+        film.setRate(popularFilmsIndex.likesOf(film.getId()));
+        film.setGenres(uniqueGenres(film).stream()
+                .map(genre -> genreStorage.getGenreById(genre.getId()).orElse(genre))
+                .collect(Collectors.toList()));
+        return film;
+    }
+
+    private void setFilmParameters(PreparedStatement stmt, Film film) throws SQLException {
+        stmt.setString(1, film.getName());
+        stmt.setString(2, film.getDescription());
+        stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
+        stmt.setInt(4, film.getDuration());
+        stmt.setInt(5, film.getMpa().getId());
+    }
+
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
         Film film = new Film();
         film.setId(rs.getInt("id"));
@@ -142,89 +432,99 @@ public class FilmDbStorage implements FilmStorage {
         mpa.setName(rs.getString("mpa_name"));
         film.setMpa(mpa);
 
-        // Получаем количество лайков из того же запроса, если есть
-        try {
-            film.setRate(rs.getInt("likes_count"));
-        } catch (SQLException e) {
-            // Если колонки likes_count нет, получаем отдельным запросом
-            film.setRate(getLikesCount(film.getId()));
-        }
+        // Количество лайков хранится в самой строке фильма, отдельный запрос не нужен
+        film.setRate(rs.getInt("likes_count"));
 
         return film;
     }
 
-    private Integer getLikesCount(Integer filmId) {
-        String sql = "SELECT COUNT(*) FROM film_likes WHERE film_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId);
-        return count != null ? count : 0;
+    /**
+     * Приводит жанры фильма в БД к переданным: удаляются только убранные жанры,
+     * вставляются только добавленные, обе операции выполняются пакетом.
+     * Для фильма с неизменными жанрами ничего не записывается.
+     */
+    private void updateFilmGenres(Film film) {
+        Set<Integer> requested = uniqueGenreIds(film);
+        Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ?", Integer.class, film.getId()));
+
+        List<Object[]> removed = new ArrayList<>();
+        for (Integer genreId : existing) {
+            if (!requested.contains(genreId)) {
+                removed.add(new Object[]{film.getId(), genreId});
+            }
+        }
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?", removed);
+        }
+
+        requested.removeAll(existing);
+        insertFilmGenres(film.getId(), requested);
+    }
+
+    private void insertFilmGenres(Integer filmId, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(genreIds.size());
+        genreIds.forEach(genreId -> rows.add(new Object[]{filmId, genreId}));
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", rows);
     }
 
-    private Mpa getMpaById(Integer mpaId) {
-        String sql = "SELECT * FROM mpa_ratings WHERE id = ?";
-        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
-            Mpa mpa = new Mpa();
-            mpa.setId(rs.getInt("id"));
-            mpa.setName(rs.getString("name"));
-            return mpa;
-        }, mpaId);
+    private Set<Integer> uniqueGenreIds(Film film) {
+        Set<Integer> genreIds = new TreeSet<>();
+        uniqueGenres(film).forEach(genre -> genreIds.add(genre.getId()));
+        return genreIds;
     }
 
-    private void updateFilmGenres(Film film) {
-        // Удаляем старые жанры
-        String deleteSql = "DELETE FROM film_genres WHERE film_id = ?";
-        jdbcTemplate.update(deleteSql, film.getId());
-
-        // Добавляем новые жанры (если они есть и не null)
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            // Убираем дубликаты жанров
-            Set<Genre> uniqueGenres = film.getGenres().stream()
+    /**
+     * Жанры фильма без дубликатов и пустых значений, упорядоченные по ID
+     */
+    private Set<Genre> uniqueGenres(Film film) {
+        Set<Genre> uniqueGenres = new TreeSet<>(Comparator.comparing(Genre::getId));
+        if (film.getGenres() != null) {
+            film.getGenres().stream()
                     .filter(genre -> genre != null && genre.getId() != null)
-                    .collect(Collectors.toCollection(() ->
-                            new TreeSet<>(Comparator.comparing(Genre::getId))));
-
-            String insertSql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
-            for (Genre genre : uniqueGenres) {
-                jdbcTemplate.update(insertSql, film.getId(), genre.getId());
-            }
+                    .forEach(uniqueGenres::add);
         }
+        return uniqueGenres;
     }
 
     private void loadGenresForFilms(List<Film> films) {
-        List<Integer> filmIds = films.stream()
-                .map(Film::getId)
-                .collect(Collectors.toList());
-
-        if (filmIds.isEmpty()) {
+        Map<Integer, Film> filmsById = indexFilms(films);
+        if (filmsById.isEmpty()) {
             return;
         }
-        String inClause = String.join(",", Collections.nCopies(filmIds.size(), "?"));
+        bulkLookup.forEachRow(SELECT_GENRES_BY_FILM_IDS, filmsById.keySet(), genreAttacher(filmsById));
+    }
 
-        String sql = String.format(
-                "SELECT fg.film_id, g.id, g.name " +
-                        "FROM film_genres fg " +
-                        "JOIN genres g ON fg.genre_id = g.id " +
-                        "WHERE fg.film_id IN (%s) " +
-                        "ORDER BY fg.film_id, g.id", inClause
-        );
-        // Выполняем запрос и маппим результаты
-        Map<Integer, List<Genre>> genresByFilmId = jdbcTemplate.query(
-                sql,
-                filmIds.toArray(),
-                rs -> {
-                    Map<Integer, List<Genre>> result = new HashMap<>();
-                    while (rs.next()) {
-                        Integer filmId = rs.getInt("film_id");
-                        Genre genre = new Genre(rs.getInt("id"), rs.getString("name"));
-                        result.computeIfAbsent(filmId, k -> new ArrayList<>()).add(genre);
-                    }
-                    return result;
-                }
-        );
+    /**
+     * Для выборки всей таблицы фильтр по ID не нужен — жанры читаются одним запросом
+     */
+    private void loadGenresForAllFilms(List<Film> films) {
+        Map<Integer, Film> filmsById = indexFilms(films);
+        if (filmsById.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_ALL_GENRES + " ORDER BY fg.film_id, g.id", genreAttacher(filmsById));
+    }
 
-        // Устанавливаем жанры для каждого фильма
+    private Map<Integer, Film> indexFilms(List<Film> films) {
+        // Жанры сразу добавляются в фильмы, без промежуточных коллекций
+        Map<Integer, Film> filmsById = new HashMap<>();
         films.forEach(film -> {
-            List<Genre> genres = genresByFilmId.getOrDefault(film.getId(), new ArrayList<>());
-            film.setGenres(genres);
+            film.setGenres(new ArrayList<>());
+            filmsById.put(film.getId(), film);
         });
+        return filmsById;
+    }
+
+    private RowCallbackHandler genreAttacher(Map<Integer, Film> filmsById) {
+        return rs -> {
+            Film film = filmsById.get(rs.getInt("film_id"));
+            if (film != null) {
+                film.getGenres().add(new Genre(rs.getInt("id"), rs.getString("name")));
+            }
+        };
     }
 }
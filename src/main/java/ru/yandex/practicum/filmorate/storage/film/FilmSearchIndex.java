@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Инвертированный индекс названий и описаний фильмов для полнотекстового поиска.
+ * Текст разбивается на слова из букв и цифр любого алфавита, приводится к нижнему регистру, «ё» заменяется на «е».
+ * Слова хранятся в упорядоченном словаре, поэтому поиск по префиксу — это обход диапазона ключей.
+ * Строится по таблице films при старте и обновляется при сохранении, изменении и удалении фильмов.
+ */
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex implements InMemoryIndex {
+    /**
+     * Слова короче этой длины ищутся только целиком: иначе префикс совпадёт с большей частью словаря
+     */
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final int TITLE_EXACT = 8;
+    private static final int TITLE_PREFIX = 4;
+    private static final int DESCRIPTION_EXACT = 2;
+    private static final int DESCRIPTION_PREFIX = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NavigableMap<String, int[]> titlePostings = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, int[]> descriptionPostings = new ConcurrentSkipListMap<>();
+    private final Map<Integer, FilmTokens> tokensByFilm = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        titlePostings.clear();
+        descriptionPostings.clear();
+        tokensByFilm.clear();
+        jdbcTemplate.query("SELECT id, name, description FROM films", rs -> {
+            putFilm(rs.getInt("id"), rs.getString("name"), rs.getString("description"));
+        });
+    }
+
+    public synchronized void putFilm(int filmId, String title, String description) {
+        removeFilm(filmId);
+        FilmTokens tokens = new FilmTokens(tokenize(title), tokenize(description));
+        tokens.title().forEach(token -> titlePostings.merge(token, new int[]{filmId},
+                (postings, ignored) -> SortedIntArrays.with(postings, filmId)));
+        tokens.description().forEach(token -> descriptionPostings.merge(token, new int[]{filmId},
+                (postings, ignored) -> SortedIntArrays.with(postings, filmId)));
+        tokensByFilm.put(filmId, tokens);
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        FilmTokens tokens = tokensByFilm.remove(filmId);
+        if (tokens == null) {
+            return;
+        }
+        tokens.title().forEach(token -> removePosting(titlePostings, token, filmId));
+        tokens.description().forEach(token -> removePosting(descriptionPostings, token, filmId));
+    }
+
+    /**
+     * Ищет фильмы, в которых встречаются все слова запроса (целиком или как префикс слова).
+     * Совпадение в названии весит больше, чем в описании, точное — больше, чем по префиксу.
+     * При равной релевантности выше фильм с большим значением tieBreaker (если задан), затем с меньшим ID.
+     *
+     * @return ID не более limit фильмов в порядке убывания релевантности
+     */
+    public List<Integer> search(String query, boolean byTitle, boolean byDescription, int limit,
+                                IntUnaryOperator tieBreaker) {
+        Set<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || (!byTitle && !byDescription)) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Integer> scores = null;
+        for (String token : queryTokens) {
+            Map<Integer, Integer> tokenScores = new HashMap<>();
+            if (byTitle) {
+                match(titlePostings, token, TITLE_EXACT, TITLE_PREFIX)
+                        .forEach((filmId, score) -> tokenScores.merge(filmId, score, Integer::sum));
+            }
+            if (byDescription) {
+                match(descriptionPostings, token, DESCRIPTION_EXACT, DESCRIPTION_PREFIX)
+                        .forEach((filmId, score) -> tokenScores.merge(filmId, score, Integer::sum));
+            }
+
+            // Фильм должен совпасть с каждым словом запроса
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<Integer, Integer> previous = scores;
+                scores = new HashMap<>();
+                for (Map.Entry<Integer, Integer> entry : tokenScores.entrySet()) {
+                    Integer score = previous.get(entry.getKey());
+                    if (score != null) {
+                        scores.put(entry.getKey(), score + entry.getValue());
+                    }
+                }
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        Map<Integer, Integer> relevance = scores;
+        Comparator<Integer> order = Comparator.comparing(relevance::get, Comparator.<Integer>reverseOrder());
+        if (tieBreaker != null) {
+            order = order.thenComparing(tieBreaker::applyAsInt, Comparator.<Integer>reverseOrder());
+        }
+        order = order.thenComparing(Comparator.<Integer>naturalOrder());
+
+        List<Integer> result = new ArrayList<>(relevance.keySet());
+        result.sort(order);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Слова текста без повторов в порядке появления
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c == 'ё') {
+                c = 'е';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Оценка совпадения слова запроса с одним полем: лучшая из оценок по всем подходящим словам поля
+     */
+    private static Map<Integer, Integer> match(NavigableMap<String, int[]> postings, String token,
+                                               int exactScore, int prefixScore) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        Map<String, int[]> matches = token.length() >= MIN_PREFIX_LENGTH
+                ? postings.subMap(token, true, token + Character.MAX_VALUE, true)
+                : postings.subMap(token, true, token, true);
+        matches.forEach((word, filmIds) -> {
+            int score = word.equals(token) ? exactScore : prefixScore;
+            for (int filmId : filmIds) {
+                scores.merge(filmId, score, Math::max);
+            }
+        });
+        return scores;
+    }
+
+    private static void removePosting(NavigableMap<String, int[]> postings, String token, int filmId) {
+        postings.computeIfPresent(token, (key, filmIds) -> {
+            int[] updated = SortedIntArrays.without(filmIds, filmId);
+            return updated.length == 0 ? null : updated;
+        });
+    }
+
+    private record FilmTokens(Set<String> title, Set<String> description) {
+    }
+}
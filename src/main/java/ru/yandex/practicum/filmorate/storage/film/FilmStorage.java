@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,8 +11,33 @@ public interface FilmStorage {
 
     Optional<Film> findById(Integer id);
 
+    /**
+     * Проверка существования по первичному ключу без загрузки связанных данных
+     */
+    boolean existsById(Integer id);
+
+    /**
+     * true, если существуют все переданные ID
+     */
+    boolean existsAll(Collection<Integer> ids);
+
+    /**
+     * Страница фильмов с ID больше afterId в порядке возрастания ID
+     */
+    List<Film> findPage(Integer afterId, int limit);
+
+    /**
+     * Фильмы с переданными ID в том же порядке; отсутствующие ID пропускаются
+     */
+    List<Film> findByIds(List<Integer> ids);
+
     Film save(Film film);
 
+    /**
+     * Пакетная вставка новых фильмов вместе с жанрами; после вызова у фильмов заполнены ID
+     */
+    void saveAll(List<Film> films);
+
     Film update(Film film);
 
     void delete(Integer id);
@@ -19,5 +46,32 @@ public interface FilmStorage {
 
     void removeLike(Integer filmId, Integer userId);
 
-    List<Film> findPopularFilms(int count);
+    /**
+     * Пакетно применяет события лайков. Для каждой пары фильм-пользователь учитывается
+     * только последнее событие; повторные лайки и ссылки на несуществующие записи пропускаются.
+     *
+     * @return количество событий, изменивших данные
+     */
+    int applyLikes(List<LikeEvent> events);
+
+    /**
+     * Метка версии фильма для ETag без обращения к БД; null, если фильм неизвестен
+     */
+    String versionTag(Integer id);
+
+    /**
+     * Метка версии всего каталога: меняется при любом изменении фильмов или лайков
+     */
+    String catalogVersionTag();
+
+    /**
+     * Поиск по словам в названии и (или) описании в порядке убывания релевантности.
+     * При tiesByLikes фильмы с равной релевантностью упорядочиваются по количеству лайков.
+     */
+    List<Film> searchFilms(String query, boolean byTitle, boolean byDescription, boolean tiesByLikes, int limit);
+
+    /**
+     * Самые популярные фильмы; genreId и year ограничивают выборку, если не равны null
+     */
+    List<Film> findPopularFilms(int count, Integer genreId, Integer year);
 }
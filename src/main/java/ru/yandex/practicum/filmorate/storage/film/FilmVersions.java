@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.VersionTags;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии фильмов в памяти: копия столбца films.version и общая версия каталога,
+ * которая растёт при любой записи в фильмы. По ним строятся ETag без обращения к БД.
+ * Хранилища сдвигают версии только после фиксации транзакции, поэтому откаченная запись ETag не меняет.
+ */
+@Component
+@RequiredArgsConstructor
+public class FilmVersions implements InMemoryIndex {
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        versions.clear();
+        jdbcTemplate.query("SELECT id, version FROM films", rs -> {
+            versions.put(rs.getInt("id"), rs.getLong("version"));
+        });
+        catalogVersion.incrementAndGet();
+    }
+
+    public void register(int filmId) {
+        versions.put(filmId, 0L);
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Отмечает изменение фильма; в БД в той же операции выполняется version = version + 1
+     */
+    public void touch(int filmId) {
+        versions.merge(filmId, 1L, Long::sum);
+        catalogVersion.incrementAndGet();
+    }
+
+    public void remove(int filmId) {
+        versions.remove(filmId);
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Метка версии фильма или null, если фильм неизвестен
+     */
+    public String tagOf(int filmId) {
+        Long version = versions.get(filmId);
+        return version != null ? VersionTags.of(version) : null;
+    }
+
+    public String catalogTag() {
+        return VersionTags.of(catalogVersion.get());
+    }
+}
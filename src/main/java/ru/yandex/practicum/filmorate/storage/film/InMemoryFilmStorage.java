@@ -0,0 +1,474 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.IntObjectMap;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmDelete;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmLikes;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmPut;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmSequence;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.LikeAdd;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.LikeRemove;
+import ru.yandex.practicum.filmorate.storage.journal.Journaled;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище фильмов целиком в памяти для профиля {@code in-memory}.
+ * Фильмы лежат неизменяемыми записями в {@link IntObjectMap}, жанры — отсортированным массивом ID;
+ * лайки, рейтинг, полнотекстовый поиск и версии ведут те же индексы, что и у {@link FilmDbStorage}.
+ * Без журнала состояние загружается из БД при старте, после чего запросы к БД не выполняются
+ * и изменения остаются только в памяти. С включённым {@link StorageJournal} каждое изменение
+ * записывается в журнал, а состояние восстанавливается из него. Изменения одного фильма упорядочены
+ * блокировкой из набора {@link #LOCK_STRIPES}, чтение идёт без блокировок.
+ */
+@Component
+@Profile("in-memory")
+public class InMemoryFilmStorage implements FilmStorage, InMemoryIndex {
+    private static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final LikesIndex likesIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FilmVersions filmVersions;
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final UserStorage userStorage;
+    private final StorageJournal journal;
+
+    private final IntObjectMap<StoredFilm> films = new IntObjectMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final Object[] locks = createLocks();
+
+    public InMemoryFilmStorage(JdbcTemplate jdbcTemplate, PopularFilmsIndex popularFilmsIndex, LikesIndex likesIndex,
+                               FilmSearchIndex searchIndex, FilmVersions filmVersions, MpaStorage mpaStorage,
+                               GenreStorage genreStorage, UserStorage userStorage, StorageJournal journal) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.likesIndex = likesIndex;
+        this.searchIndex = searchIndex;
+        this.filmVersions = filmVersions;
+        this.mpaStorage = mpaStorage;
+        this.genreStorage = genreStorage;
+        this.userStorage = userStorage;
+        this.journal = journal;
+        journal.register(new Journaled() {
+            @Override
+            public void apply(JournalRecord record) {
+                InMemoryFilmStorage.this.apply(record);
+            }
+
+            @Override
+            public void export(Consumer<JournalRecord> sink) {
+                InMemoryFilmStorage.this.export(sink);
+            }
+        });
+    }
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        if (journal.isEnabled()) {
+            // Источник истины — журнал: состояние восстанавливается из него, когда созданы все бины
+            return;
+        }
+        Map<Integer, int[]> genresByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres ORDER BY film_id, genre_id", rs -> {
+            genresByFilm.merge(rs.getInt("film_id"), new int[]{rs.getInt("genre_id")},
+                    (genres, added) -> SortedIntArrays.with(genres, added[0]));
+        });
+
+        films.clear();
+        lastId.set(0);
+        jdbcTemplate.query("SELECT id, name, description, release_date, duration, mpa_id FROM films", rs -> {
+            int id = rs.getInt("id");
+            films.put(id, new StoredFilm(rs.getString("name"), rs.getString("description"),
+                    rs.getDate("release_date").toLocalDate().toEpochDay(), rs.getInt("duration"),
+                    rs.getInt("mpa_id"), genresByFilm.getOrDefault(id, SortedIntArrays.EMPTY)));
+            lastId.accumulateAndGet(id, Math::max);
+        });
+    }
+
+    @Override
+    public List<Film> findAll() {
+        int[] ids = films.keys();
+        List<Film> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            StoredFilm film = films.get(id);
+            if (film != null) {
+                result.add(toFilm(id, film));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Film> findById(Integer id) {
+        StoredFilm film = films.get(id);
+        return film != null ? Optional.of(toFilm(id, film)) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return films.containsKey(id);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            if (!films.containsKey(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Film> findPage(Integer afterId, int limit) {
+        // ID выдаются подряд, поэтому страница — проход по ним с пропуском удалённых
+        List<Film> page = new ArrayList<>(Math.min(limit, 1024));
+        int last = lastId.get();
+        for (int id = Math.max(afterId != null ? afterId : 0, 0) + 1; id <= last && page.size() < limit; id++) {
+            StoredFilm film = films.get(id);
+            if (film != null) {
+                page.add(toFilm(id, film));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Film> findByIds(List<Integer> ids) {
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            StoredFilm film = films.get(id);
+            if (film != null) {
+                result.add(toFilm(id, film));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Film save(Film film) {
+        journal.awaitDurable(insert(film, StoredFilm.of(toRecord(0, film))));
+        return hydrateSaved(film);
+    }
+
+    /**
+     * Как и пакетная вставка в БД, пакет сохраняется целиком или не сохраняется вовсе:
+     * все фильмы переводятся в записи до того, как первый из них попадёт в хранилище
+     */
+    @Override
+    public void saveAll(List<Film> batch) {
+        List<StoredFilm> stored = new ArrayList<>(batch.size());
+        for (Film film : batch) {
+            stored.add(StoredFilm.of(toRecord(0, film)));
+        }
+        // Пакет ждёт одной записи журнала на диск, а не отдельной на каждый фильм
+        long sequence = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            sequence = insert(batch.get(i), stored.get(i));
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public Film update(Film film) {
+        int id = film.getId();
+        FilmPut record = toRecord(id, film);
+        long sequence;
+        synchronized (lockFor(id)) {
+            if (!films.containsKey(id)) {
+                throw new NotFoundException("Фильм с ID " + id + " не найден");
+            }
+            sequence = journal.write(record, this::apply);
+        }
+        journal.awaitDurable(sequence);
+        return hydrateSaved(film);
+    }
+
+    @Override
+    public void delete(Integer id) {
+        long sequence;
+        synchronized (lockFor(id)) {
+            if (!films.containsKey(id)) {
+                return;
+            }
+            sequence = journal.write(new FilmDelete(id), this::apply);
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void addLike(Integer filmId, Integer userId) {
+        long sequence;
+        synchronized (lockFor(filmId)) {
+            if (SortedIntArrays.contains(likesIndex.usersWhoLiked(filmId), userId)) {
+                throw new DuplicateKeyException("Пользователь " + userId + " уже поставил лайк фильму " + filmId);
+            }
+            sequence = journal.write(new LikeAdd(filmId, userId), this::apply);
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void removeLike(Integer filmId, Integer userId) {
+        long sequence;
+        synchronized (lockFor(filmId)) {
+            if (!SortedIntArrays.contains(likesIndex.usersWhoLiked(filmId), userId)) {
+                return;
+            }
+            sequence = journal.write(new LikeRemove(filmId, userId), this::apply);
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public int applyLikes(List<LikeEvent> events) {
+        // Схлопываем события: для пары фильм-пользователь важно только последнее
+        Map<Long, LikeEvent> latest = new LinkedHashMap<>();
+        for (LikeEvent event : events) {
+            latest.put(((long) event.getFilmId() << 32) | (event.getUserId() & 0xffffffffL), event);
+        }
+
+        int applied = 0;
+        long sequence = 0;
+        for (LikeEvent event : latest.values()) {
+            int filmId = event.getFilmId();
+            int userId = event.getUserId();
+            synchronized (lockFor(filmId)) {
+                boolean liked = SortedIntArrays.contains(likesIndex.usersWhoLiked(filmId), userId);
+                if (!event.isLiked() && liked) {
+                    sequence = journal.write(new LikeRemove(filmId, userId), this::apply);
+                    applied++;
+                } else if (event.isLiked() && !liked && films.containsKey(filmId)
+                        && userStorage.existsById(userId)) {
+                    sequence = journal.write(new LikeAdd(filmId, userId), this::apply);
+                    applied++;
+                }
+            }
+        }
+        journal.awaitDurable(sequence);
+        return applied;
+    }
+
+    @Override
+    public String versionTag(Integer id) {
+        return filmVersions.tagOf(id);
+    }
+
+    @Override
+    public String catalogVersionTag() {
+        return filmVersions.catalogTag();
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, boolean byTitle, boolean byDescription, boolean tiesByLikes,
+                                  int limit) {
+        return findByIds(searchIndex.search(query, byTitle, byDescription, limit,
+                tiesByLikes ? popularFilmsIndex::likesOf : null));
+    }
+
+    @Override
+    public List<Film> findPopularFilms(int count, Integer genreId, Integer year) {
+        return findByIds(popularFilmsIndex.top(count, genreId, year));
+    }
+
+    /**
+     * @return номер записи журнала
+     */
+    private long insert(Film film, StoredFilm stored) {
+        int id = lastId.incrementAndGet();
+        long sequence;
+        synchronized (lockFor(id)) {
+            sequence = journal.write(stored.toRecord(id), this::apply);
+        }
+        film.setId(id);
+        return sequence;
+    }
+
+    /**
+     * Единственный путь изменения состояния: и для новых изменений под блокировкой фильма,
+     * и при восстановлении из журнала. Повторное применение записи ничего не меняет
+     */
+    private void apply(JournalRecord record) {
+        switch (record) {
+            case FilmPut put -> putFilm(put);
+            case FilmDelete delete -> removeFilm(delete.filmId());
+            case LikeAdd like -> {
+                if (films.containsKey(like.filmId())
+                        && !SortedIntArrays.contains(likesIndex.usersWhoLiked(like.filmId()), like.userId())) {
+                    likesIndex.addLike(like.filmId(), like.userId());
+                    popularFilmsIndex.changeLikes(like.filmId(), 1);
+                    filmVersions.touch(like.filmId());
+                }
+            }
+            case LikeRemove like -> {
+                if (SortedIntArrays.contains(likesIndex.usersWhoLiked(like.filmId()), like.userId())) {
+                    likesIndex.removeLike(like.filmId(), like.userId());
+                    popularFilmsIndex.changeLikes(like.filmId(), -1);
+                    filmVersions.touch(like.filmId());
+                }
+            }
+            case FilmLikes likes -> {
+                if (films.containsKey(likes.filmId())) {
+                    int previous = likesIndex.usersWhoLiked(likes.filmId()).length;
+                    likesIndex.putLikes(likes.filmId(), likes.userIds());
+                    popularFilmsIndex.changeLikes(likes.filmId(), likes.userIds().length - previous);
+                    filmVersions.touch(likes.filmId());
+                }
+            }
+            case FilmSequence sequence -> lastId.accumulateAndGet(sequence.lastId(), Math::max);
+            default -> {
+                // Записи пользователей применяет InMemoryUserStorage
+            }
+        }
+    }
+
+    private void putFilm(FilmPut put) {
+        int id = put.filmId();
+        StoredFilm previous = films.put(id, StoredFilm.of(put));
+        popularFilmsIndex.putFilm(id, LocalDate.ofEpochDay(put.releaseDay()).getYear(), boxed(put.genreIds()));
+        searchIndex.putFilm(id, put.name(), put.description());
+        if (previous == null) {
+            filmVersions.register(id);
+        } else {
+            filmVersions.touch(id);
+        }
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    private void removeFilm(int id) {
+        films.remove(id);
+        popularFilmsIndex.removeFilm(id);
+        likesIndex.removeFilm(id);
+        searchIndex.removeFilm(id);
+        filmVersions.remove(id);
+    }
+
+    /**
+     * Состояние для снимка журнала: фильм и сразу за ним все его лайки одной записью
+     */
+    private void export(Consumer<JournalRecord> sink) {
+        sink.accept(new FilmSequence(lastId.get()));
+        for (int id : films.keys()) {
+            StoredFilm film = films.get(id);
+            if (film == null) {
+                continue;
+            }
+            sink.accept(film.toRecord(id));
+            int[] likes = likesIndex.usersWhoLiked(id);
+            if (likes.length > 0) {
+                sink.accept(new FilmLikes(id, likes));
+            }
+        }
+    }
+
+    private Film toFilm(int id, StoredFilm stored) {
+        Film film = new Film(id, stored.name(), stored.description(), stored.releaseDate(), stored.duration(),
+                mpaStorage.getMpaById(stored.mpaId()).orElse(new Mpa(stored.mpaId(), null)));
+        film.setRate(popularFilmsIndex.likesOf(id));
+        film.setGenres(genres(stored.genreIds()));
+        return film;
+    }
+
+    /**
+     * Приводит только что сохранённый фильм к тому же виду, что и при чтении
+     */
+    private Film hydrateSaved(Film film) {
+        StoredFilm stored = films.get(film.getId());
+        if (stored != null) {
+            film.setMpa(mpaStorage.getMpaById(stored.mpaId()).orElse(film.getMpa()));
+            film.setGenres(genres(stored.genreIds()));
+        }
+        film.setRate(popularFilmsIndex.likesOf(film.getId()));
+        return film;
+    }
+
+    private List<Genre> genres(int[] genreIds) {
+        List<Genre> genres = new ArrayList<>(genreIds.length);
+        for (int genreId : genreIds) {
+            genres.add(genreStorage.getGenreById(genreId).orElse(new Genre(genreId, null)));
+        }
+        return genres;
+    }
+
+    private Object lockFor(int filmId) {
+        return locks[filmId & (LOCK_STRIPES - 1)];
+    }
+
+    private static List<Integer> boxed(int[] values) {
+        List<Integer> boxed = new ArrayList<>(values.length);
+        for (int value : values) {
+            boxed.add(value);
+        }
+        return boxed;
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private static FilmPut toRecord(int id, Film film) {
+        int[] genreIds = SortedIntArrays.EMPTY;
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (genre != null && genre.getId() != null) {
+                    genreIds = SortedIntArrays.with(genreIds, genre.getId());
+                }
+            }
+        }
+        return new FilmPut(id, film.getName(), film.getDescription(), film.getReleaseDate().toEpochDay(),
+                film.getDuration(), film.getMpa().getId(), genreIds);
+    }
+
+    /**
+     * Неизменяемая запись фильма: дата выпуска хранится номером дня, жанры — отсортированными ID без повторов
+     */
+    private record StoredFilm(String name, String description, long releaseDay, int duration, int mpaId,
+                              int[] genreIds) {
+
+        static StoredFilm of(FilmPut put) {
+            return new StoredFilm(put.name(), put.description(), put.releaseDay(), put.duration(), put.mpaId(),
+                    put.genreIds());
+        }
+
+        FilmPut toRecord(int id) {
+            return new FilmPut(id, name, description, releaseDay, duration, mpaId, genreIds);
+        }
+
+        LocalDate releaseDate() {
+            return LocalDate.ofEpochDay(releaseDay);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Горячие счётчики лайков для films.likes_count.
+ * Лайк только прибавляет разность к {@link LongAdder} фильма: ячейки счётчика разнесены по потокам,
+ * поэтому лайки одного популярного фильма не спорят ни за одну переменную, ни за строку films в БД.
+ * Раз в fold-interval-ms накопленные разности одной транзакцией прибавляются к likes_count
+ * (и version — по одному разу на сброс) и после фиксации переносятся в {@link PopularFilmsIndex}
+ * и {@link FilmVersions}. Так rate, /films/popular и ETag меняются согласованно и отстают
+ * от лайков не больше чем на интервал сброса.
+ * <p>
+ * Разность попадает в счётчик только после фиксации транзакции лайка. Не сброшенное при аварийной
+ * остановке теряется, поэтому при запуске likes_count сверяется с film_likes.
+ */
+@Component
+@Slf4j
+public class LikeCounters implements InMemoryIndex {
+    private static final String ADD_LIKES =
+            "UPDATE films SET likes_count = likes_count + ?, version = version + 1 WHERE id = ?";
+    private static final String RECOUNT_LIKES = "UPDATE films f " +
+            "SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id), version = version + 1 " +
+            "WHERE likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmVersions filmVersions;
+    private final boolean enabled;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<Integer, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock foldLock = new ReentrantLock();
+
+    public LikeCounters(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        PopularFilmsIndex popularFilmsIndex,
+                        FilmVersions filmVersions,
+                        @Value("${filmorate.likes.counters.enabled:false}") boolean enabled,
+                        @Value("${filmorate.likes.counters.fold-interval-ms:200}") long foldIntervalMs,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.filmVersions = filmVersions;
+        this.enabled = enabled;
+
+        if (enabled) {
+            ThreadFactory threadFactory = virtualThreads
+                    ? Thread.ofVirtual().name("like-counters").factory()
+                    : Thread.ofPlatform().name("like-counters").daemon().factory();
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            scheduler.scheduleWithFixedDelay(this::foldQuietly, foldIntervalMs, foldIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(int filmId, int delta) {
+        LongAdder counter = counters.get(filmId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(filmId, id -> new LongAdder());
+        }
+        counter.add(delta);
+    }
+
+    /**
+     * Накопленная и ещё не записанная в БД разность
+     */
+    public long pending(int filmId) {
+        LongAdder counter = counters.get(filmId);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Забывает разность удалённого фильма
+     */
+    public void removeFilm(int filmId) {
+        counters.remove(filmId);
+    }
+
+    /**
+     * Пересчитывает likes_count по film_likes. Вызывается при запуске, пока разностей в памяти ещё нет
+     *
+     * @return количество исправленных фильмов
+     */
+    @PostConstruct
+    public int reconcile() {
+        if (!enabled) {
+            return 0;
+        }
+        int fixed = jdbcTemplate.update(RECOUNT_LIKES);
+        if (fixed > 0) {
+            log.warn("Счётчики лайков {} фильмов не совпадали с film_likes и пересчитаны", fixed);
+            popularFilmsIndex.rebuild();
+            filmVersions.rebuild();
+        }
+        return fixed;
+    }
+
+    /**
+     * Прибавляет накопленные разности к likes_count одной транзакцией
+     *
+     * @return количество фильмов, у которых изменился счётчик
+     */
+    public int fold() {
+        foldLock.lock();
+        try {
+            // Счётчики не обнуляются: лайки, пришедшие во время записи, останутся на следующий сброс
+            List<Integer> filmIds = new ArrayList<>();
+            List<Object[]> rows = new ArrayList<>();
+            counters.forEach((filmId, counter) -> {
+                long delta = counter.sum();
+                if (delta != 0) {
+                    filmIds.add(filmId);
+                    rows.add(new Object[]{delta, filmId});
+                }
+            });
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            int[] updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(ADD_LIKES, rows));
+            int folded = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                int filmId = filmIds.get(i);
+                long delta = (long) rows.get(i)[0];
+                LongAdder counter = counters.get(filmId);
+                if (counter != null) {
+                    counter.add(-delta);
+                }
+                if (updated[i] == 0) {
+                    // Фильм удалён: разность просто отбрасывается
+                    continue;
+                }
+                popularFilmsIndex.changeLikes(filmId, Math.toIntExact(delta));
+                filmVersions.touch(filmId);
+                folded++;
+            }
+            return folded;
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    /**
+     * Счётчики не строятся по БД, а дописываются в неё. При перестройке накопленное записывается,
+     * а разности фильмов, стёртых в обход хранилища, отбрасываются и не попадут в новые фильмы с теми же ID
+     */
+    @Override
+    public void rebuild() {
+        fold();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        fold();
+    }
+
+    private void foldQuietly() {
+        try {
+            fold();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать накопленные счётчики лайков", e);
+        }
+    }
+}
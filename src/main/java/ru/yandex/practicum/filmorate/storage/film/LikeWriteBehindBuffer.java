@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков (write-behind).
+ * События копятся в ограниченной очереди и пакетами уходят в {@link FilmStorage#applyLikes}
+ * по таймеру или при накоплении batch-size событий. Если очередь заполнена и место не освободилось
+ * за offer-timeout-ms, вызывающий поток сам сбрасывает очередь и пишет своё событие синхронно.
+ * При остановке приложения очередь дописывается в БД, а события, пришедшие после остановки, пишутся синхронно.
+ * <p>
+ * Пакет, который не удалось записать, не теряется: при нарушении ограничений он повторяется по одному
+ * событию и отбрасываются только неприменимые события, при прочих ошибках (например, недоступна БД)
+ * пакет остаётся в буфере и записывается первым при следующем сбросе.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehindBuffer {
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+    private final BlockingQueue<LikeEvent> queue;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // События пакета, запись которого сорвалась; доступ только под flushLock
+    private final List<LikeEvent> failed = new ArrayList<>();
+
+    public LikeWriteBehindBuffer(FilmStorage filmStorage,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                 @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                 @Value("${filmorate.likes.write-behind.offer-timeout-ms:50}") long offerTimeoutMs,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        if (enabled) {
+            ThreadFactory threadFactory = virtualThreads
+                    ? Thread.ofVirtual().name("like-write-behind").factory()
+                    : Thread.ofPlatform().name("like-write-behind").daemon().factory();
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(LikeEvent event) {
+        if (scheduler == null || scheduler.isShutdown()) {
+            // Буфер остановлен: фоновый сброс уже не придёт, поэтому пишем сами
+            applySynchronously(event);
+            return;
+        }
+
+        boolean queued;
+        try {
+            queued = queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+
+        if (!queued) {
+            // Запись не успевает за потоком событий — сбрасываем очередь сами, сохраняя порядок
+            log.warn("Очередь лайков переполнена, событие записывается синхронно");
+            applySynchronously(event);
+            return;
+        }
+
+        if (queue.size() >= batchSize) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Буфер остановили между постановкой в очередь и запуском сброса
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Записывает в БД всё, что накопилось в очереди
+     *
+     * @return количество событий, изменивших данные
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            int applied = 0;
+            if (!failed.isEmpty()) {
+                List<LikeEvent> retry = new ArrayList<>(failed);
+                failed.clear();
+                applied += applyBatch(retry);
+            }
+            List<LikeEvent> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                applied += applyBatch(batch);
+                batch.clear();
+            }
+            return applied;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flush();
+    }
+
+    private void applySynchronously(LikeEvent event) {
+        // Сначала сбрасываем очередь, чтобы сохранить порядок событий
+        flushLock.lock();
+        try {
+            flush();
+            applyBatch(List.of(event));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает пакет; при ошибке, которая может пройти при повторе, сохраняет его для следующего сброса
+     */
+    private int applyBatch(List<LikeEvent> batch) {
+        try {
+            return filmStorage.applyLikes(batch);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Пакет из {} лайков нарушил ограничения БД, события записываются по одному", batch.size());
+        } catch (RuntimeException e) {
+            failed.addAll(batch);
+            throw e;
+        }
+
+        int applied = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            LikeEvent event = batch.get(i);
+            try {
+                applied += filmStorage.applyLikes(List.of(event));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Лайк {} не может быть записан и отброшен", event, e);
+            } catch (RuntimeException e) {
+                failed.addAll(batch.subList(i, batch.size()));
+                throw e;
+            }
+        }
+        return applied;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать накопленные лайки", e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разреженная матрица лайков пользователь × фильм в двух разрезах:
+ * отсортированные ID понравившихся фильмов по пользователю и ID поставивших лайк по фильму.
+ * Массивы неизменяемы и подменяются при каждом изменении, поэтому новый массив пользователя
+ * означает, что его лайки поменялись. Строится по таблице film_likes при старте.
+ */
+@Component
+@RequiredArgsConstructor
+public class LikesIndex implements InMemoryIndex {
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        Map<Integer, int[]> films = loadGrouped("SELECT user_id, film_id FROM film_likes ORDER BY user_id, film_id");
+        Map<Integer, int[]> users = loadGrouped("SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id");
+        filmsByUser.clear();
+        filmsByUser.putAll(films);
+        usersByFilm.clear();
+        usersByFilm.putAll(users);
+    }
+
+    public synchronized void addLike(int filmId, int userId) {
+        filmsByUser.compute(userId, (id, films) -> SortedIntArrays.with(orEmpty(films), filmId));
+        usersByFilm.compute(filmId, (id, users) -> SortedIntArrays.with(orEmpty(users), userId));
+    }
+
+    public synchronized void removeLike(int filmId, int userId) {
+        filmsByUser.computeIfPresent(userId, (id, films) -> SortedIntArrays.without(films, filmId));
+        usersByFilm.computeIfPresent(filmId, (id, users) -> SortedIntArrays.without(users, userId));
+    }
+
+    /**
+     * Заменяет все лайки фильма: одна вставка вместо отдельной копии массива фильма на каждый лайк
+     *
+     * @param userIds отсортированные ID без повторов; массив нельзя изменять после передачи
+     */
+    public synchronized void putLikes(int filmId, int[] userIds) {
+        removeFilm(filmId);
+        if (userIds.length == 0) {
+            return;
+        }
+        usersByFilm.put(filmId, userIds);
+        for (int userId : userIds) {
+            filmsByUser.compute(userId, (id, films) -> SortedIntArrays.with(orEmpty(films), filmId));
+        }
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        int[] users = usersByFilm.remove(filmId);
+        if (users != null) {
+            for (int userId : users) {
+                filmsByUser.computeIfPresent(userId, (id, films) -> SortedIntArrays.without(films, filmId));
+            }
+        }
+    }
+
+    public synchronized void removeUser(int userId) {
+        int[] films = filmsByUser.remove(userId);
+        if (films != null) {
+            for (int filmId : films) {
+                usersByFilm.computeIfPresent(filmId, (id, users) -> SortedIntArrays.without(users, userId));
+            }
+        }
+    }
+
+    /**
+     * Отсортированные ID фильмов, которые понравились пользователю; массив нельзя изменять
+     */
+    public int[] filmsLikedBy(int userId) {
+        return filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    /**
+     * Отсортированные ID пользователей, поставивших лайк фильму; массив нельзя изменять
+     */
+    public int[] usersWhoLiked(int filmId) {
+        return usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY);
+    }
+
+    private Map<Integer, int[]> loadGrouped(String sql) {
+        Map<Integer, int[]> grouped = new HashMap<>();
+        int[] size = new int[1];
+        int[] currentKey = {-1};
+        int[][] buffer = {new int[16]};
+
+        // Строки упорядочены по ключу, поэтому массив для ключа собирается за один проход
+        jdbcTemplate.query(sql, rs -> {
+            int key = rs.getInt(1);
+            if (key != currentKey[0]) {
+                if (size[0] > 0) {
+                    grouped.put(currentKey[0], Arrays.copyOf(buffer[0], size[0]));
+                }
+                currentKey[0] = key;
+                size[0] = 0;
+            }
+            if (size[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+            }
+            buffer[0][size[0]++] = rs.getInt(2);
+        });
+        if (size[0] > 0) {
+            grouped.put(currentKey[0], Arrays.copyOf(buffer[0], size[0]));
+        }
+        return grouped;
+    }
+
+    private static int[] orEmpty(int[] values) {
+        return values != null ? values : SortedIntArrays.EMPTY;
+    }
+}
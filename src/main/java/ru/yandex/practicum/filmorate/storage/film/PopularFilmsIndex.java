@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Упорядоченный по количеству лайков индекс фильмов.
+ * Обновляется инкрементально при каждом лайке, поэтому выборка top-N
+ * стоит O(N) от запрошенного количества, а не от общего числа лайков.
+ * Кроме общего рейтинга ведутся такие же рейтинги по жанру, году выпуска и их паре,
+ * так что выборка с фильтрами тоже не зависит от размера каталога.
+ */
+@Component
+@RequiredArgsConstructor
+public class PopularFilmsIndex implements InMemoryIndex {
+    private static final Comparator<Entry> BY_POPULARITY = Comparator
+            .comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_POPULARITY);
+
+    private final Map<Integer, Partitions> partitionsByFilm = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByGenre = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByYear = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Entry>> rankingByGenreAndYear = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        entries.clear();
+        ranking.clear();
+        partitionsByFilm.clear();
+        rankingByGenre.clear();
+        rankingByYear.clear();
+        rankingByGenreAndYear.clear();
+
+        Map<Integer, List<Integer>> genresByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            genresByFilm.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        jdbcTemplate.query("SELECT id, likes_count, EXTRACT(YEAR FROM release_date) AS release_year FROM films",
+                rs -> {
+                    int filmId = rs.getInt("id");
+                    Partitions partitions = new Partitions(rs.getInt("release_year"),
+                            toSortedArray(genresByFilm.getOrDefault(filmId, List.of())));
+                    partitionsByFilm.put(filmId, partitions);
+                    put(new Entry(filmId, rs.getInt("likes_count")), partitions);
+                });
+    }
+
+    /**
+     * Добавляет новый фильм без лайков либо обновляет год и жанры существующего
+     */
+    public synchronized void putFilm(int filmId, int releaseYear, Collection<Integer> genreIds) {
+        Partitions partitions = new Partitions(releaseYear, toSortedArray(genreIds));
+        Entry old = entries.get(filmId);
+        Partitions oldPartitions = partitionsByFilm.put(filmId, partitions);
+        if (old == null) {
+            put(new Entry(filmId, 0), partitions);
+            return;
+        }
+        remove(old, oldPartitions);
+        put(old, partitions);
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        Entry old = entries.remove(filmId);
+        Partitions partitions = partitionsByFilm.remove(filmId);
+        if (old != null) {
+            remove(old, partitions);
+        }
+    }
+
+    public synchronized void changeLikes(int filmId, int delta) {
+        Entry old = entries.get(filmId);
+        Partitions partitions = partitionsByFilm.get(filmId);
+        int likes = old != null ? old.likes() : 0;
+        if (old != null) {
+            remove(old, partitions);
+        }
+        // Без ограничения снизу: индекс повторяет likes_count, а тот в БД тоже не ограничен
+        put(new Entry(filmId, likes + delta), partitions);
+    }
+
+    public int likesOf(int filmId) {
+        Entry entry = entries.get(filmId);
+        return entry != null ? entry.likes() : 0;
+    }
+
+    /**
+     * Возвращает ID самых популярных фильмов в порядке убывания количества лайков
+     */
+    public List<Integer> top(int count) {
+        return top(count, null, null);
+    }
+
+    /**
+     * Возвращает ID самых популярных фильмов с заданным жанром и (или) годом выпуска;
+     * null в фильтре означает отсутствие ограничения
+     */
+    public List<Integer> top(int count, Integer genreId, Integer year) {
+        NavigableSet<Entry> source;
+        if (genreId != null && year != null) {
+            source = rankingByGenreAndYear.get(genreAndYear(genreId, year));
+        } else if (genreId != null) {
+            source = rankingByGenre.get(genreId);
+        } else if (year != null) {
+            source = rankingByYear.get(year);
+        } else {
+            source = ranking;
+        }
+        if (source == null) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> result = new ArrayList<>(Math.min(count, entries.size()));
+        Iterator<Entry> iterator = source.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            result.add(iterator.next().filmId());
+        }
+        return result;
+    }
+
+    private void put(Entry entry, Partitions partitions) {
+        entries.put(entry.filmId(), entry);
+        ranking.add(entry);
+        if (partitions == null) {
+            return;
+        }
+        rankingByYear.computeIfAbsent(partitions.year(), key -> newRanking()).add(entry);
+        for (int genreId : partitions.genreIds()) {
+            rankingByGenre.computeIfAbsent(genreId, key -> newRanking()).add(entry);
+            rankingByGenreAndYear.computeIfAbsent(genreAndYear(genreId, partitions.year()), key -> newRanking())
+                    .add(entry);
+        }
+    }
+
+    private void remove(Entry entry, Partitions partitions) {
+        ranking.remove(entry);
+        if (partitions == null) {
+            return;
+        }
+        removeFrom(rankingByYear, partitions.year(), entry);
+        for (int genreId : partitions.genreIds()) {
+            removeFrom(rankingByGenre, genreId, entry);
+            removeFrom(rankingByGenreAndYear, genreAndYear(genreId, partitions.year()), entry);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<Entry>> rankings, K key, Entry entry) {
+        NavigableSet<Entry> partition = rankings.get(key);
+        if (partition != null) {
+            partition.remove(entry);
+        }
+    }
+
+    private static NavigableSet<Entry> newRanking() {
+        return new ConcurrentSkipListSet<>(BY_POPULARITY);
+    }
+
+    private static long genreAndYear(int genreId, int year) {
+        return ((long) genreId << 32) | (year & 0xffffffffL);
+    }
+
+    private static int[] toSortedArray(Collection<Integer> ids) {
+        int[] result = SortedIntArrays.EMPTY;
+        for (Integer id : ids) {
+            result = SortedIntArrays.with(result, id);
+        }
+        return result;
+    }
+
+    private record Entry(int filmId, int likes) {
+    }
+
+    /**
+     * Год выпуска и жанры фильма — ключи рейтингов, в которые входит фильм
+     */
+    private record Partitions(int year, int[] genreIds) {
+    }
+}
@@ -1,31 +1,61 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.DictionaryCache;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.VersionTags;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Жанры читаются из кэша, загруженного при старте; его жанры общие для всех фильмов и не меняются.
+ * При промахе выполняется запрос к БД, и если запись нашлась, кэш перечитывается целиком.
+ * Отсутствующий ID запоминается, и до следующего перечитывания БД по нему больше не спрашивают.
+ */
 @Component
 @RequiredArgsConstructor
-public class GenreDbStorage implements GenreStorage {
+public class GenreDbStorage implements GenreStorage, InMemoryIndex {
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile DictionaryCache<Genre> cache = DictionaryCache.empty();
+
+    @PostConstruct
     @Override
-    public List<Genre> getAllGenres() {
+    public void rebuild() {
         String sql = "SELECT * FROM genres ORDER BY id";
-        return jdbcTemplate.query(sql, this::mapRowToGenre);
+        cache = DictionaryCache.of(jdbcTemplate.query(sql, (rs, rowNum) ->
+                new SharedGenre(rs.getInt("id"), rs.getString("name"))), Genre::getId);
+    }
+
+    @Override
+    public List<Genre> getAllGenres() {
+        return cache.all();
     }
 
     @Override
     public Optional<Genre> getGenreById(Integer id) {
-        String sql = "SELECT * FROM genres WHERE id = ?";
-        List<Genre> results = jdbcTemplate.query(sql, this::mapRowToGenre, id);
-        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        Genre genre = cache.get(id);
+        if (genre != null) {
+            return Optional.of(genre);
+        }
+        return readThrough(id);
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return cache.contains(id) || readThrough(id).isPresent();
+    }
+
+    @Override
+    public String versionTag() {
+        return VersionTags.of(cache.generation());
     }
 
     @Override
@@ -37,7 +67,42 @@ public class GenreDbStorage implements GenreStorage {
         return jdbcTemplate.query(sql, this::mapRowToGenre, filmId);
     }
 
+    private Optional<Genre> readThrough(Integer id) {
+        DictionaryCache<Genre> snapshot = cache;
+        if (id == null || snapshot.isKnownMissing(id)) {
+            return Optional.empty();
+        }
+        String sql = "SELECT * FROM genres WHERE id = ?";
+        List<Genre> results = jdbcTemplate.query(sql, this::mapRowToGenre, id);
+        if (results.isEmpty()) {
+            snapshot.markMissing(id);
+            return Optional.empty();
+        }
+        rebuild();
+        return Optional.of(results.get(0));
+    }
+
     private Genre mapRowToGenre(ResultSet rs, int rowNum) throws SQLException {
         return new Genre(rs.getInt("id"), rs.getString("name"));
     }
+
+    /**
+     * Жанр из кэша: один экземпляр отдаётся всем вызывающим, поэтому изменить его нельзя
+     */
+    private static final class SharedGenre extends Genre {
+
+        SharedGenre(Integer id, String name) {
+            super(id, name);
+        }
+
+        @Override
+        public void setId(Integer id) {
+            throw new UnsupportedOperationException("Жанр из справочника нельзя изменить");
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Жанр из справочника нельзя изменить");
+        }
+    }
 }
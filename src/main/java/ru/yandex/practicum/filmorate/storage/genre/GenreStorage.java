@@ -9,5 +9,12 @@ public interface GenreStorage {
 
     Optional<Genre> getGenreById(Integer id);
 
+    boolean existsById(Integer id);
+
+    /**
+     * Метка версии справочника для ETag; меняется при каждом перечитывании
+     */
+    String versionTag();
+
     List<Genre> getGenresByFilmId(Integer filmId);
 }
@@ -0,0 +1,241 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmDelete;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmLikes;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmPut;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmSequence;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FriendAdd;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FriendRemove;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.LikeAdd;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.LikeRemove;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserDelete;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserFriends;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserPut;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserSequence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный формат журнала и снимков. Файл начинается с заголовка (сигнатура и версия формата),
+ * дальше идут кадры: длина содержимого, CRC32C содержимого и само содержимое — тип записи и её поля.
+ * Строки пишутся длиной в байтах UTF-8 (-1 для null), массивы ID — длиной и значениями.
+ * Кадр с неверной длиной или контрольной суммой означает недописанный при сбое хвост.
+ */
+final class JournalCodec {
+    static final int LOG_MAGIC = 0x464A574C;
+    static final int SNAPSHOT_MAGIC = 0x464A534E;
+    static final int FORMAT_VERSION = 1;
+    static final int FILE_HEADER_SIZE = 8;
+
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static final byte FILM_PUT = 1;
+    private static final byte FILM_DELETE = 2;
+    private static final byte LIKE_ADD = 3;
+    private static final byte LIKE_REMOVE = 4;
+    private static final byte FILM_LIKES = 5;
+    private static final byte FILM_SEQUENCE = 6;
+    private static final byte USER_PUT = 11;
+    private static final byte USER_DELETE = 12;
+    private static final byte FRIEND_ADD = 13;
+    private static final byte FRIEND_REMOVE = 14;
+    private static final byte USER_FRIENDS = 15;
+    private static final byte USER_SEQUENCE = 16;
+
+    private JournalCodec() {
+    }
+
+    static ByteBuffer fileHeader(int magic) {
+        return ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(magic).putInt(FORMAT_VERSION).flip();
+    }
+
+    /**
+     * Проверяет заголовок и ставит позицию буфера на первый кадр
+     */
+    static void checkFileHeader(ByteBuffer buffer, int magic, Path file) {
+        if (buffer.remaining() < FILE_HEADER_SIZE || buffer.getInt() != magic) {
+            throw new IllegalStateException("Файл " + file + " не является файлом журнала");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Неподдерживаемая версия формата " + version + " в файле " + file);
+        }
+    }
+
+    /**
+     * Кадр записи целиком, готовый к записи в файл
+     */
+    static byte[] encode(JournalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            // Место под длину и контрольную сумму заполняется после записи содержимого
+            out.writeLong(0);
+            writePayload(record, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - FRAME_HEADER_SIZE;
+        CRC32C checksum = new CRC32C();
+        checksum.update(frame, FRAME_HEADER_SIZE, length);
+        ByteBuffer.wrap(frame).putInt(length).putInt((int) checksum.getValue());
+        return frame;
+    }
+
+    /**
+     * Читает кадр с текущей позиции буфера и сдвигает её за кадр
+     *
+     * @return запись или null, если кадр недописан или повреждён; позиция буфера при этом не меняется
+     */
+    static JournalRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < FRAME_HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        int expectedChecksum = buffer.getInt(start + 4);
+        if (length <= 0 || length > buffer.remaining() - FRAME_HEADER_SIZE) {
+            return null;
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(start + FRAME_HEADER_SIZE, length));
+        if ((int) checksum.getValue() != expectedChecksum) {
+            return null;
+        }
+
+        JournalRecord record = readPayload(buffer.slice(start + FRAME_HEADER_SIZE, length));
+        buffer.position(start + FRAME_HEADER_SIZE + length);
+        return record;
+    }
+
+    private static void writePayload(JournalRecord record, DataOutputStream out) throws IOException {
+        switch (record) {
+            case FilmPut film -> {
+                out.writeByte(FILM_PUT);
+                out.writeInt(film.filmId());
+                writeString(out, film.name());
+                writeString(out, film.description());
+                out.writeLong(film.releaseDay());
+                out.writeInt(film.duration());
+                out.writeInt(film.mpaId());
+                writeIds(out, film.genreIds());
+            }
+            case FilmDelete delete -> {
+                out.writeByte(FILM_DELETE);
+                out.writeInt(delete.filmId());
+            }
+            case LikeAdd like -> {
+                out.writeByte(LIKE_ADD);
+                out.writeInt(like.filmId());
+                out.writeInt(like.userId());
+            }
+            case LikeRemove like -> {
+                out.writeByte(LIKE_REMOVE);
+                out.writeInt(like.filmId());
+                out.writeInt(like.userId());
+            }
+            case FilmLikes likes -> {
+                out.writeByte(FILM_LIKES);
+                out.writeInt(likes.filmId());
+                writeIds(out, likes.userIds());
+            }
+            case FilmSequence sequence -> {
+                out.writeByte(FILM_SEQUENCE);
+                out.writeInt(sequence.lastId());
+            }
+            case UserPut user -> {
+                out.writeByte(USER_PUT);
+                out.writeInt(user.userId());
+                writeString(out, user.email());
+                writeString(out, user.login());
+                writeString(out, user.name());
+                out.writeLong(user.birthday());
+            }
+            case UserDelete delete -> {
+                out.writeByte(USER_DELETE);
+                out.writeInt(delete.userId());
+            }
+            case FriendAdd friend -> {
+                out.writeByte(FRIEND_ADD);
+                out.writeInt(friend.userId());
+                out.writeInt(friend.friendId());
+            }
+            case FriendRemove friend -> {
+                out.writeByte(FRIEND_REMOVE);
+                out.writeInt(friend.userId());
+                out.writeInt(friend.friendId());
+            }
+            case UserFriends friends -> {
+                out.writeByte(USER_FRIENDS);
+                out.writeInt(friends.userId());
+                writeIds(out, friends.friendIds());
+            }
+            case UserSequence sequence -> {
+                out.writeByte(USER_SEQUENCE);
+                out.writeInt(sequence.lastId());
+            }
+        }
+    }
+
+    private static JournalRecord readPayload(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case FILM_PUT -> new FilmPut(in.getInt(), readString(in), readString(in), in.getLong(), in.getInt(),
+                    in.getInt(), readIds(in));
+            case FILM_DELETE -> new FilmDelete(in.getInt());
+            case LIKE_ADD -> new LikeAdd(in.getInt(), in.getInt());
+            case LIKE_REMOVE -> new LikeRemove(in.getInt(), in.getInt());
+            case FILM_LIKES -> new FilmLikes(in.getInt(), readIds(in));
+            case FILM_SEQUENCE -> new FilmSequence(in.getInt());
+            case USER_PUT -> new UserPut(in.getInt(), readString(in), readString(in), readString(in), in.getLong());
+            case USER_DELETE -> new UserDelete(in.getInt());
+            case FRIEND_ADD -> new FriendAdd(in.getInt(), in.getInt());
+            case FRIEND_REMOVE -> new FriendRemove(in.getInt(), in.getInt());
+            case USER_FRIENDS -> new UserFriends(in.getInt(), readIds(in));
+            case USER_SEQUENCE -> new UserSequence(in.getInt());
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeIds(DataOutputStream out, int[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (int id : ids) {
+            out.writeInt(id);
+        }
+    }
+
+    private static int[] readIds(ByteBuffer in) {
+        int[] ids = new int[in.getInt()];
+        in.asIntBuffer().get(ids);
+        in.position(in.position() + ids.length * Integer.BYTES);
+        return ids;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Имена файлов в каталоге журнала. Сегмент журнала {@code log-N} начинается в момент,
+ * когда начинается снимок {@code snapshot-N}, поэтому для восстановления нужен последний снимок
+ * и сегменты с номерами не меньше его номера.
+ */
+final class JournalFiles {
+    private static final String LOG_PREFIX = "log-";
+    private static final String LOG_SUFFIX = ".wal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private JournalFiles() {
+    }
+
+    static Path log(Path directory, long generation) {
+        return directory.resolve(String.format("%s%016d%s", LOG_PREFIX, generation, LOG_SUFFIX));
+    }
+
+    static Path snapshot(Path directory, long generation) {
+        return directory.resolve(String.format("%s%016d%s", SNAPSHOT_PREFIX, generation, SNAPSHOT_SUFFIX));
+    }
+
+    static Path temporary(Path file) {
+        return file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * Номера сегментов журнала по возрастанию
+     */
+    static List<Long> logs(Path directory) throws IOException {
+        return generations(directory, LOG_PREFIX, LOG_SUFFIX);
+    }
+
+    /**
+     * Номера снимков по возрастанию
+     */
+    static List<Long> snapshots(Path directory) throws IOException {
+        return generations(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Удаляет снимки, не дописанные до конца при сбое
+     */
+    static void deleteTemporary(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static List<Long> generations(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Посторонний файл с похожим именем
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+}
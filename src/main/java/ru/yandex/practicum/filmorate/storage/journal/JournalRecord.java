@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+/**
+ * Запись журнала изменений хранилищ в памяти.
+ * Каждая запись задаёт итоговое состояние, а не приращение (фильм целиком, наличие лайка),
+ * поэтому повторное применение поверх снимка, частично уже содержащего изменение, ничего не портит.
+ * Записи {@link FilmLikes}, {@link UserFriends} и счётчики ID пишутся только в снимки.
+ */
+public sealed interface JournalRecord {
+
+    /**
+     * Новый или изменённый фильм; дата выпуска — номер дня, жанры — отсортированные ID без повторов
+     */
+    record FilmPut(int filmId, String name, String description, long releaseDay, int duration, int mpaId,
+                   int[] genreIds) implements JournalRecord {
+    }
+
+    record FilmDelete(int filmId) implements JournalRecord {
+    }
+
+    record LikeAdd(int filmId, int userId) implements JournalRecord {
+    }
+
+    record LikeRemove(int filmId, int userId) implements JournalRecord {
+    }
+
+    /**
+     * Все лайки фильма: отсортированные ID пользователей
+     */
+    record FilmLikes(int filmId, int[] userIds) implements JournalRecord {
+    }
+
+    /**
+     * Последний выданный ID фильма: после удаления последних фильмов их ID не выдаются повторно
+     */
+    record FilmSequence(int lastId) implements JournalRecord {
+    }
+
+    /**
+     * Новый или изменённый пользователь; дата рождения — номер дня
+     */
+    record UserPut(int userId, String email, String login, String name, long birthday) implements JournalRecord {
+    }
+
+    record UserDelete(int userId) implements JournalRecord {
+    }
+
+    record FriendAdd(int userId, int friendId) implements JournalRecord {
+    }
+
+    record FriendRemove(int userId, int friendId) implements JournalRecord {
+    }
+
+    /**
+     * Все друзья пользователя: отсортированные ID
+     */
+    record UserFriends(int userId, int[] friendIds) implements JournalRecord {
+    }
+
+    record UserSequence(int lastId) implements JournalRecord {
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.util.function.Consumer;
+
+/**
+ * Хранилище, состояние которого восстанавливается из {@link StorageJournal}
+ */
+public interface Journaled {
+
+    /**
+     * Применяет запись из снимка или журнала; записи чужих типов пропускаются
+     */
+    void apply(JournalRecord record);
+
+    /**
+     * Выгружает текущее состояние для снимка. Запись в хранилище при этом не останавливается,
+     * недостающие и лишние изменения исправляет журнал, который дописывается с начала выгрузки.
+     */
+    void export(Consumer<JournalRecord> sink);
+}
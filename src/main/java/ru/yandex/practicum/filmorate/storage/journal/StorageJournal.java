@@ -0,0 +1,353 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Журнал изменений хранилищ профиля {@code in-memory}: делает их данные долговечными без БД.
+ * Каждое изменение применяется в памяти и дописывается двоичным кадром в сегмент журнала
+ * ({@link WriteAheadLog}); вызывающий поток ждёт fsync, общий для всех накопившихся записей.
+ * Периодически, а также когда сегмент вырастает до snapshot-log-bytes, журнал переключается
+ * на новый сегмент, состояние хранилищ выгружается в компактный снимок, а старые сегменты удаляются.
+ * Снимок пишется без остановки записи: изменения, попавшие в него частично, повторяет новый сегмент.
+ * При старте последний снимок отображается в память и применяется, затем применяются сегменты журнала;
+ * недописанный при сбое хвост последнего сегмента отбрасывается.
+ */
+@Slf4j
+@Component
+@Profile("in-memory")
+public class StorageJournal implements SmartInitializingSingleton {
+    private static final long SNAPSHOT_CHECK_INTERVAL_MS = 1000;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long snapshotIntervalMs;
+    private final long snapshotLogBytes;
+    private final boolean virtualThreads;
+    private final List<Journaled> participants = new CopyOnWriteArrayList<>();
+    private final Object snapshotLock = new Object();
+
+    private volatile WriteAheadLog writeAheadLog;
+    private volatile long lastSnapshotAt;
+    private ScheduledExecutorService scheduler;
+
+    public StorageJournal(@Value("${filmorate.journal.enabled:false}") boolean enabled,
+                          @Value("${filmorate.journal.directory:./data/journal}") String directory,
+                          @Value("${filmorate.journal.snapshot-interval-ms:600000}") long snapshotIntervalMs,
+                          @Value("${filmorate.journal.snapshot-log-bytes:67108864}") long snapshotLogBytes,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.snapshotLogBytes = snapshotLogBytes;
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Подключает хранилище к восстановлению и снимкам; вызывается при создании хранилища
+     */
+    public void register(Journaled participant) {
+        participants.add(participant);
+    }
+
+    /**
+     * Восстанавливает хранилища, когда все они созданы, но до приёма запросов
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить хранилища из журнала " + directory, e);
+        }
+        lastSnapshotAt = System.currentTimeMillis();
+
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("storage-snapshot").factory()
+                : Thread.ofPlatform().name("storage-snapshot").daemon().factory();
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::snapshotIfDue, SNAPSHOT_CHECK_INTERVAL_MS, SNAPSHOT_CHECK_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Применяет изменение и записывает его в журнал. Вызывается под блокировкой, которая упорядочивает
+     * изменения хранилища; ждать записи на диск нужно уже после неё, через {@link #awaitDurable}.
+     * Если change бросает исключение, в журнал ничего не пишется.
+     *
+     * @return номер записи; 0, если журнал выключен
+     */
+    public long write(JournalRecord record, Consumer<JournalRecord> change) {
+        if (!enabled) {
+            change.accept(record);
+            return 0;
+        }
+        WriteAheadLog current = writeAheadLog;
+        if (current == null) {
+            throw new IllegalStateException("Журнал изменений ещё не открыт");
+        }
+        byte[] frame = JournalCodec.encode(record);
+        return current.append(frame, () -> change.accept(record));
+    }
+
+    /**
+     * Возвращает, когда записи до указанной включительно записаны на диск
+     */
+    public void awaitDurable(long sequence) {
+        if (sequence > 0) {
+            writeAheadLog.sync(sequence);
+        }
+    }
+
+    /**
+     * Переключает журнал на новый сегмент, записывает снимок и удаляет ставшие ненужными файлы
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            try {
+                long started = System.nanoTime();
+                long generation = writeAheadLog.rotate(directory);
+                Path file = JournalFiles.snapshot(directory, generation);
+                Path temporary = JournalFiles.temporary(file);
+                long records;
+                try (SnapshotWriter writer = new SnapshotWriter(temporary)) {
+                    for (Journaled participant : participants) {
+                        participant.export(writer::write);
+                    }
+                    records = writer.finish();
+                }
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+                deleteBefore(generation);
+                lastSnapshotAt = System.currentTimeMillis();
+                log.info("Снимок хранилищ {}: {} записей, {} байт за {} мс", file.getFileName(), records,
+                        Files.size(file), (System.nanoTime() - started) / 1_000_000);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось записать снимок хранилищ", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        synchronized (snapshotLock) {
+            if (writeAheadLog != null) {
+                writeAheadLog.close();
+            }
+        }
+    }
+
+    private void snapshotIfDue() {
+        try {
+            long logSize = writeAheadLog.size();
+            boolean changed = logSize > JournalCodec.FILE_HEADER_SIZE;
+            boolean due = System.currentTimeMillis() - lastSnapshotAt >= snapshotIntervalMs;
+            if (logSize >= snapshotLogBytes || (changed && due)) {
+                snapshot();
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать снимок хранилищ", e);
+        }
+    }
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        JournalFiles.deleteTemporary(directory);
+
+        List<Long> snapshots = JournalFiles.snapshots(directory);
+        long base = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        long records = base > 0 ? replaySnapshot(JournalFiles.snapshot(directory, base)) : 0;
+
+        List<Long> logs = JournalFiles.logs(directory).stream().filter(generation -> generation >= base).toList();
+        long expected = Math.max(base, 1);
+        long validLength = -1;
+        for (int i = 0; i < logs.size(); i++) {
+            if (logs.get(i) != expected) {
+                throw new IllegalStateException("Не найден сегмент журнала " + JournalFiles.log(directory, expected));
+            }
+            Replayed replayed = replayLog(JournalFiles.log(directory, expected), i == logs.size() - 1);
+            records += replayed.records();
+            validLength = replayed.validLength();
+            expected++;
+        }
+
+        long generation = logs.isEmpty() ? Math.max(base, 1) : logs.get(logs.size() - 1);
+        writeAheadLog = WriteAheadLog.open(directory, generation, validLength);
+        deleteBefore(base);
+        log.info("Хранилища восстановлены из журнала {}: снимок {}, сегментов {}, записей {} за {} мс", directory,
+                base, logs.size(), records, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Снимок отображается в память целиком и разбирается без копирования в кучу
+     */
+    private long replaySnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, checkMappable(file, channel));
+            JournalCodec.checkFileHeader(buffer, JournalCodec.SNAPSHOT_MAGIC, file);
+            long records = replay(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IllegalStateException("Снимок " + file + " повреждён на позиции " + buffer.position());
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Сегмент журнала читается в кучу: последний сегмент после разбора обрезается по целым кадрам,
+     * а обрезать файл, отображённый в память, можно не на всех платформах
+     *
+     * @param last у последнего сегмента допустим недописанный хвост
+     */
+    private Replayed replayLog(Path file, boolean last) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate(checkMappable(file, channel));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Читаем до конца файла
+            }
+            buffer.flip();
+        }
+
+        if (last && buffer.remaining() < JournalCodec.FILE_HEADER_SIZE) {
+            // Сбой сразу после создания сегмента: заголовок будет записан заново
+            return new Replayed(0, -1);
+        }
+        JournalCodec.checkFileHeader(buffer, JournalCodec.LOG_MAGIC, file);
+        long records = replay(buffer);
+        if (buffer.hasRemaining()) {
+            if (!last) {
+                throw new IllegalStateException("Сегмент журнала " + file + " повреждён на позиции "
+                        + buffer.position());
+            }
+            log.warn("Недописанный хвост журнала {} ({} байт) отброшен", file, buffer.remaining());
+        }
+        return new Replayed(records, buffer.position());
+    }
+
+    private long replay(ByteBuffer buffer) {
+        long records = 0;
+        JournalRecord record;
+        while ((record = JournalCodec.decode(buffer)) != null) {
+            for (Journaled participant : participants) {
+                participant.apply(record);
+            }
+            records++;
+        }
+        return records;
+    }
+
+    private void deleteBefore(long generation) throws IOException {
+        for (long snapshot : JournalFiles.snapshots(directory)) {
+            if (snapshot < generation) {
+                Files.deleteIfExists(JournalFiles.snapshot(directory, snapshot));
+            }
+        }
+        for (long segment : JournalFiles.logs(directory)) {
+            if (segment < generation) {
+                Files.deleteIfExists(JournalFiles.log(directory, segment));
+            }
+        }
+    }
+
+    private static int checkMappable(Path file, FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Файл " + file + " больше 2 ГБ");
+        }
+        return (int) size;
+    }
+
+    private record Replayed(long records, long validLength) {
+    }
+
+    /**
+     * Пишет снимок кадрами через буфер фиксированного размера
+     */
+    private static final class SnapshotWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE);
+        private long records;
+
+        SnapshotWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            buffer.put(JournalCodec.fileHeader(JournalCodec.SNAPSHOT_MAGIC));
+        }
+
+        void write(JournalRecord record) {
+            byte[] frame = JournalCodec.encode(record);
+            try {
+                if (buffer.remaining() < frame.length) {
+                    drain();
+                }
+                if (buffer.remaining() < frame.length) {
+                    ByteBuffer large = ByteBuffer.wrap(frame);
+                    while (large.hasRemaining()) {
+                        channel.write(large);
+                    }
+                } else {
+                    buffer.put(frame);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            records++;
+        }
+
+        /**
+         * @return количество записей в снимке
+         */
+        long finish() throws IOException {
+            drain();
+            channel.force(true);
+            return records;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сегмент журнала, открытый на дозапись, с групповой фиксацией.
+ * Кадры копятся в буфере в памяти; поток, которому нужна гарантия записи, становится ведущим:
+ * забирает буфер целиком, пишет его в файл и выполняет один fsync за все накопленные записи.
+ * Потоки, чьи записи успел зафиксировать ведущий, возвращаются без обращения к диску.
+ * Порядок блокировок: сначала syncLock, затем appendLock.
+ */
+final class WriteAheadLog implements AutoCloseable {
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private FileChannel channel;
+    private long generation;
+    private long size;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appended;
+    private volatile long durable;
+    private IOException failure;
+
+    private WriteAheadLog(FileChannel channel, long generation, long size) {
+        this.channel = channel;
+        this.generation = generation;
+        this.size = size;
+    }
+
+    /**
+     * Открывает сегмент на дозапись; существующий файл обрезается до validLength,
+     * чтобы новые кадры не легли после недописанного хвоста
+     */
+    static WriteAheadLog open(Path directory, long generation, long validLength) throws IOException {
+        return new WriteAheadLog(openSegment(directory, generation, validLength), generation,
+                Math.max(validLength, JournalCodec.FILE_HEADER_SIZE));
+    }
+
+    /**
+     * Выполняет change и добавляет кадр в очередь записи атомарно относительно других записей и смены сегмента:
+     * порядок изменений в памяти совпадает с порядком в журнале
+     *
+     * @return номер записи для {@link #sync}
+     */
+    long append(byte[] frame, Runnable change) {
+        appendLock.lock();
+        try {
+            checkWritable();
+            change.run();
+            if (pending.remaining() < frame.length) {
+                pending = grow(pending, frame.length);
+            }
+            pending.put(frame);
+            return ++appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает, когда запись с указанным номером и все предыдущие записаны на диск
+     */
+    void sync(long sequence) {
+        if (sequence <= durable) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (sequence <= durable) {
+                return;
+            }
+            flush();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Фиксирует текущий сегмент и переключает запись на следующий
+     *
+     * @return номер нового сегмента
+     */
+    long rotate(Path directory) throws IOException {
+        syncLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                flush();
+                FileChannel next = openSegment(directory, generation + 1, -1);
+                channel.close();
+                channel = next;
+                generation++;
+                size = JournalCodec.FILE_HEADER_SIZE;
+                return generation;
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    long generation() {
+        appendLock.lock();
+        try {
+            return generation;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Размер текущего сегмента вместе с ещё не записанными кадрами
+     */
+    long size() {
+        appendLock.lock();
+        try {
+            return size + pending.position();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                if (channel.isOpen()) {
+                    flush();
+                    channel.close();
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Вызывается под syncLock. Буфер забирается под appendLock, а пишется уже без неё,
+     * чтобы новые записи копились в запасном буфере, пока идёт fsync
+     */
+    private void flush() {
+        ByteBuffer batch;
+        long upTo;
+        appendLock.lock();
+        try {
+            checkWritable();
+            batch = pending;
+            pending = spare;
+            upTo = appended;
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            batch.flip();
+            int written = batch.remaining();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+            appendLock.lock();
+            try {
+                size += written;
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            // Часть записей уже применена в памяти, но не попала на диск: дальше журнал писать нельзя
+            appendLock.lock();
+            try {
+                failure = e;
+            } finally {
+                appendLock.unlock();
+            }
+            throw new UncheckedIOException("Не удалось записать журнал изменений", e);
+        } finally {
+            batch.clear();
+            spare = batch;
+        }
+        durable = upTo;
+    }
+
+    /**
+     * Вызывается под appendLock
+     */
+    private void checkWritable() {
+        if (failure != null) {
+            throw new IllegalStateException("Журнал изменений недоступен после ошибки записи", failure);
+        }
+        if (!channel.isOpen()) {
+            throw new IllegalStateException("Журнал изменений закрыт");
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int required) {
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < required) {
+            capacity *= 2;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        grown.put(buffer.flip());
+        return grown;
+    }
+
+    private static FileChannel openSegment(Path directory, long generation, long validLength) throws IOException {
+        Path file = JournalFiles.log(directory, generation);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (validLength < JournalCodec.FILE_HEADER_SIZE) {
+                channel.truncate(0);
+                channel.write(JournalCodec.fileHeader(JournalCodec.LOG_MAGIC), 0);
+            } else {
+                channel.truncate(validLength);
+            }
+            channel.position(channel.size());
+            channel.force(true);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
@@ -1,31 +1,76 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.DictionaryCache;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.VersionTags;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Рейтинги MPA читаются из кэша, загруженного при старте; его рейтинги общие для всех фильмов и не меняются.
+ * При промахе выполняется запрос к БД, и если запись нашлась, кэш перечитывается целиком.
+ * Отсутствующий ID запоминается, и до следующего перечитывания БД по нему больше не спрашивают.
+ */
 @Component
 @RequiredArgsConstructor
-public class MpaDbStorage implements MpaStorage {
+public class MpaDbStorage implements MpaStorage, InMemoryIndex {
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile DictionaryCache<Mpa> cache = DictionaryCache.empty();
+
+    @PostConstruct
     @Override
-    public List<Mpa> getAllMpa() {
+    public void rebuild() {
         String sql = "SELECT * FROM mpa_ratings ORDER BY id";
-        return jdbcTemplate.query(sql, this::mapRowToMpa);
+        cache = DictionaryCache.of(jdbcTemplate.query(sql, (rs, rowNum) ->
+                new SharedMpa(rs.getInt("id"), rs.getString("name"))), Mpa::getId);
+    }
+
+    @Override
+    public List<Mpa> getAllMpa() {
+        return cache.all();
     }
 
     @Override
     public Optional<Mpa> getMpaById(Integer id) {
+        Mpa mpa = cache.get(id);
+        if (mpa != null) {
+            return Optional.of(mpa);
+        }
+        return readThrough(id);
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return cache.contains(id) || readThrough(id).isPresent();
+    }
+
+    @Override
+    public String versionTag() {
+        return VersionTags.of(cache.generation());
+    }
+
+    private Optional<Mpa> readThrough(Integer id) {
+        DictionaryCache<Mpa> snapshot = cache;
+        if (id == null || snapshot.isKnownMissing(id)) {
+            return Optional.empty();
+        }
         String sql = "SELECT * FROM mpa_ratings WHERE id = ?";
         List<Mpa> results = jdbcTemplate.query(sql, this::mapRowToMpa, id);
-        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        if (results.isEmpty()) {
+            snapshot.markMissing(id);
+            return Optional.empty();
+        }
+        rebuild();
+        return Optional.of(results.get(0));
     }
 
     private Mpa mapRowToMpa(ResultSet rs, int rowNum) throws SQLException {
@@ -34,4 +79,24 @@ public class MpaDbStorage implements MpaStorage {
         mpa.setName(rs.getString("name"));
         return mpa;
     }
+
+    /**
+     * Рейтинг из кэша: один экземпляр отдаётся всем вызывающим, поэтому изменить его нельзя
+     */
+    private static final class SharedMpa extends Mpa {
+
+        SharedMpa(Integer id, String name) {
+            super(id, name);
+        }
+
+        @Override
+        public void setId(Integer id) {
+            throw new UnsupportedOperationException("Рейтинг MPA из справочника нельзя изменить");
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Рейтинг MPA из справочника нельзя изменить");
+        }
+    }
 }
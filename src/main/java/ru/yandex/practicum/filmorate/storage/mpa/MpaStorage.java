@@ -8,4 +8,11 @@ public interface MpaStorage {
     List<Mpa> getAllMpa();
 
     Optional<Mpa> getMpaById(Integer id);
+
+    boolean existsById(Integer id);
+
+    /**
+     * Метка версии справочника для ETag; меняется при каждом перечитывании
+     */
+    String versionTag();
 }
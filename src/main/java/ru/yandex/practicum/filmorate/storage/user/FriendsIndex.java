@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Списки смежности дружбы: для каждого пользователя — отсортированный массив ID его друзей.
+ * Массивы неизменяемы и подменяются целиком при каждом изменении, поэтому чтение идёт без блокировок.
+ * Общие друзья — пересечение двух отсортированных массивов без обращения к БД.
+ * Источником истины остаётся таблица friends; индекс строится по ней при старте.
+ */
+@Component
+@RequiredArgsConstructor
+public class FriendsIndex implements InMemoryIndex {
+    private static final int[] EMPTY = SortedIntArrays.EMPTY;
+
+    /**
+     * Сколько друзей раскрывается на каждом шаге обхода; ограничивает работу для «звёздных» пользователей
+     */
+    static final int SUGGESTIONS_FAN_OUT = 512;
+
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, int[]> friendsByUser = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        Map<Integer, int[]> loaded = new HashMap<>();
+        int[] sizes = new int[1];
+        int[] currentUser = {-1};
+        int[][] buffer = {new int[16]};
+
+        // Строки приходят упорядоченными, поэтому массив пользователя собирается за один проход
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id", rs -> {
+            int userId = rs.getInt("user_id");
+            if (userId != currentUser[0]) {
+                if (sizes[0] > 0) {
+                    loaded.put(currentUser[0], Arrays.copyOf(buffer[0], sizes[0]));
+                }
+                currentUser[0] = userId;
+                sizes[0] = 0;
+            }
+            if (sizes[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], sizes[0] * 2);
+            }
+            buffer[0][sizes[0]++] = rs.getInt("friend_id");
+        });
+        if (sizes[0] > 0) {
+            loaded.put(currentUser[0], Arrays.copyOf(buffer[0], sizes[0]));
+        }
+
+        friendsByUser.clear();
+        friendsByUser.putAll(loaded);
+    }
+
+    public void addFriend(int userId, int friendId) {
+        friendsByUser.compute(userId, (id, friends) ->
+                SortedIntArrays.with(friends != null ? friends : EMPTY, friendId));
+    }
+
+    public void removeFriend(int userId, int friendId) {
+        friendsByUser.computeIfPresent(userId, (id, friends) -> SortedIntArrays.without(friends, friendId));
+    }
+
+    /**
+     * Заменяет список друзей пользователя целиком
+     *
+     * @param friendIds отсортированные ID без повторов; массив нельзя изменять после передачи
+     */
+    public void putFriends(int userId, int[] friendIds) {
+        if (friendIds.length == 0) {
+            friendsByUser.remove(userId);
+        } else {
+            friendsByUser.put(userId, friendIds);
+        }
+    }
+
+    /**
+     * Удаляет пользователя вместе со всеми упоминаниями его как друга (ON DELETE CASCADE в БД)
+     */
+    public synchronized void removeUser(int userId) {
+        friendsByUser.remove(userId);
+        friendsByUser.replaceAll((id, friends) -> SortedIntArrays.without(friends, userId));
+    }
+
+    /**
+     * Отсортированные ID друзей пользователя; массив нельзя изменять
+     */
+    public int[] friendsOf(int userId) {
+        return friendsByUser.getOrDefault(userId, EMPTY);
+    }
+
+    /**
+     * Отсортированные ID общих друзей двух пользователей
+     */
+    public int[] commonFriends(int userId, int otherId) {
+        return SortedIntArrays.intersect(friendsOf(userId), friendsOf(otherId));
+    }
+
+    /**
+     * ID друзей второго уровня, упорядоченные по числу общих друзей (при равенстве — по ID).
+     * Обход ограничен: у пользователя и у каждого его друга раскрывается не более
+     * {@link #SUGGESTIONS_FAN_OUT} друзей, выбранных равномерно по списку.
+     * Друзья друзей собираются в один массив параллельно, после чего сортировка
+     * сводит подсчёт общих друзей к подсчёту длин серий одинаковых ID.
+     */
+    public int[] friendSuggestions(int userId, int limit) {
+        int[] friends = friendsOf(userId);
+        int[] expanded = sample(friends);
+        if (expanded.length == 0 || limit <= 0) {
+            return EMPTY;
+        }
+
+        int[][] frontier = new int[expanded.length][];
+        int[] offsets = new int[expanded.length + 1];
+        for (int i = 0; i < expanded.length; i++) {
+            frontier[i] = sample(friendsOf(expanded[i]));
+            offsets[i + 1] = offsets[i] + frontier[i].length;
+        }
+
+        int[] candidates = new int[offsets[expanded.length]];
+        IntStream copies = IntStream.range(0, expanded.length);
+        if (expanded.length >= PARALLEL_THRESHOLD) {
+            copies = copies.parallel();
+        }
+        copies.forEach(i -> System.arraycopy(frontier[i], 0, candidates, offsets[i], frontier[i].length));
+        Arrays.parallelSort(candidates);
+
+        // Минимальная куча по (число общих друзей, -ID) хранит limit лучших кандидатов
+        PriorityQueue<long[]> best = new PriorityQueue<>(Math.min(limit, candidates.length) + 1, (a, b) ->
+                a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+        int i = 0;
+        while (i < candidates.length) {
+            int candidate = candidates[i];
+            int runEnd = i + 1;
+            while (runEnd < candidates.length && candidates[runEnd] == candidate) {
+                runEnd++;
+            }
+            if (candidate != userId && !SortedIntArrays.contains(friends, candidate)) {
+                best.add(new long[]{runEnd - i, candidate});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            i = runEnd;
+        }
+
+        int[] result = new int[best.size()];
+        for (int position = result.length - 1; position >= 0; position--) {
+            result[position] = (int) best.poll()[1];
+        }
+        return result;
+    }
+
+    private static int[] sample(int[] friends) {
+        if (friends.length <= SUGGESTIONS_FAN_OUT) {
+            return friends;
+        }
+        int[] sampled = new int[SUGGESTIONS_FAN_OUT];
+        for (int i = 0; i < SUGGESTIONS_FAN_OUT; i++) {
+            sampled[i] = friends[(int) ((long) i * friends.length / SUGGESTIONS_FAN_OUT)];
+        }
+        return sampled;
+    }
+}
@@ -0,0 +1,389 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
+import ru.yandex.practicum.filmorate.storage.IntObjectMap;
+import ru.yandex.practicum.filmorate.storage.SortedIntArrays;
+import ru.yandex.practicum.filmorate.storage.film.FilmVersions;
+import ru.yandex.practicum.filmorate.storage.film.LikesIndex;
+import ru.yandex.practicum.filmorate.storage.film.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FriendAdd;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FriendRemove;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserDelete;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserFriends;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserPut;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.UserSequence;
+import ru.yandex.practicum.filmorate.storage.journal.Journaled;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище пользователей целиком в памяти для профиля {@code in-memory}.
+ * Пользователи лежат неизменяемыми записями в {@link IntObjectMap}, дружба — в {@link FriendsIndex}.
+ * Как и в БД, email и логин уникальны: при повторе бросается {@link DuplicateKeyException}.
+ * Создание, изменение и удаление пользователей выполняются по одному, чтобы проверка
+ * уникальности и запись были атомарны; чтение и изменение дружбы идут без общей блокировки.
+ * Как и фильмы, пользователи и дружба записываются в {@link StorageJournal}, если он включён.
+ */
+@Component
+@Profile("in-memory")
+public class InMemoryUserStorage implements UserStorage, InMemoryIndex {
+    private static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FriendsIndex friendsIndex;
+    private final LikesIndex likesIndex;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmVersions filmVersions;
+    private final StorageJournal journal;
+
+    private final IntObjectMap<StoredUser> users = new IntObjectMap<>();
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByLogin = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final Object[] friendLocks = createLocks();
+
+    public InMemoryUserStorage(JdbcTemplate jdbcTemplate, FriendsIndex friendsIndex, LikesIndex likesIndex,
+                               PopularFilmsIndex popularFilmsIndex, FilmVersions filmVersions,
+                               StorageJournal journal) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.friendsIndex = friendsIndex;
+        this.likesIndex = likesIndex;
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.filmVersions = filmVersions;
+        this.journal = journal;
+        journal.register(new Journaled() {
+            @Override
+            public void apply(JournalRecord record) {
+                InMemoryUserStorage.this.apply(record);
+            }
+
+            @Override
+            public void export(Consumer<JournalRecord> sink) {
+                InMemoryUserStorage.this.export(sink);
+            }
+        });
+    }
+
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        if (journal.isEnabled()) {
+            // Источник истины — журнал: состояние восстанавливается из него, когда созданы все бины
+            return;
+        }
+        users.clear();
+        idsByEmail.clear();
+        idsByLogin.clear();
+        lastId.set(0);
+        jdbcTemplate.query("SELECT id, email, login, name, birthday FROM users", rs -> {
+            int id = rs.getInt("id");
+            StoredUser user = new StoredUser(rs.getString("email"), rs.getString("login"), rs.getString("name"),
+                    rs.getDate("birthday").toLocalDate().toEpochDay());
+            users.put(id, user);
+            idsByEmail.put(user.email(), id);
+            idsByLogin.put(user.login(), id);
+            lastId.accumulateAndGet(id, Math::max);
+        });
+    }
+
+    @Override
+    public List<User> findAll() {
+        return findUsersInOrder(users.keys());
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        StoredUser user = users.get(id);
+        return user != null ? Optional.of(toUser(id, user)) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            if (!users.containsKey(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<User> findPage(Integer afterId, int limit) {
+        // ID выдаются подряд, поэтому страница — проход по ним с пропуском удалённых
+        List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        int last = lastId.get();
+        for (int id = Math.max(afterId != null ? afterId : 0, 0) + 1; id <= last && page.size() < limit; id++) {
+            StoredUser user = users.get(id);
+            if (user != null) {
+                page.add(toUser(id, user));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public User save(User user) {
+        long sequence;
+        synchronized (this) {
+            StoredUser stored = StoredUser.of(user);
+            checkUnique(stored, null);
+            sequence = insert(user, stored);
+        }
+        journal.awaitDurable(sequence);
+        return user;
+    }
+
+    /**
+     * Как и пакетная вставка в БД, пакет сохраняется целиком или не сохраняется вовсе
+     */
+    @Override
+    public void saveAll(List<User> batch) {
+        long sequence = 0;
+        synchronized (this) {
+            List<StoredUser> stored = new ArrayList<>(batch.size());
+            Set<String> emails = new HashSet<>();
+            Set<String> logins = new HashSet<>();
+            for (User user : batch) {
+                StoredUser record = StoredUser.of(user);
+                checkUnique(record, null);
+                if (!emails.add(record.email()) || !logins.add(record.login())) {
+                    throw new DuplicateKeyException("Email или логин повторяется в пакете: " + record.login());
+                }
+                stored.add(record);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                sequence = insert(batch.get(i), stored.get(i));
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public User update(User user) {
+        int id = user.getId();
+        long sequence;
+        synchronized (this) {
+            if (!users.containsKey(id)) {
+                return user;
+            }
+            StoredUser stored = StoredUser.of(user);
+            checkUnique(stored, id);
+            sequence = journal.write(stored.toRecord(id), this::apply);
+        }
+        journal.awaitDurable(sequence);
+        return user;
+    }
+
+    @Override
+    public void delete(Integer id) {
+        long sequence;
+        synchronized (this) {
+            if (!users.containsKey(id)) {
+                return;
+            }
+            sequence = journal.write(new UserDelete(id), this::apply);
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void addFriend(Integer userId, Integer friendId) {
+        long sequence;
+        synchronized (friendLockFor(userId)) {
+            if (SortedIntArrays.contains(friendsIndex.friendsOf(userId), friendId)) {
+                throw new DuplicateKeyException("Пользователь " + friendId + " уже в друзьях у " + userId);
+            }
+            sequence = journal.write(new FriendAdd(userId, friendId), this::apply);
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void removeFriend(Integer userId, Integer friendId) {
+        long sequence;
+        synchronized (friendLockFor(userId)) {
+            if (!SortedIntArrays.contains(friendsIndex.friendsOf(userId), friendId)) {
+                return;
+            }
+            sequence = journal.write(new FriendRemove(userId, friendId), this::apply);
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public List<User> findFriends(Integer userId) {
+        return findUsersInOrder(friendsIndex.friendsOf(userId));
+    }
+
+    @Override
+    public List<User> findCommonFriends(Integer userId, Integer otherId) {
+        return findUsersInOrder(friendsIndex.commonFriends(userId, otherId));
+    }
+
+    @Override
+    public List<User> findFriendSuggestions(Integer userId, int limit) {
+        return findUsersInOrder(friendsIndex.friendSuggestions(userId, limit));
+    }
+
+    /**
+     * Вызывается под блокировкой хранилища
+     *
+     * @param ownId ID изменяемого пользователя, которому его собственные email и логин не мешают
+     */
+    private void checkUnique(StoredUser user, Integer ownId) {
+        Integer emailOwner = idsByEmail.get(user.email());
+        Integer loginOwner = idsByLogin.get(user.login());
+        if ((emailOwner != null && !emailOwner.equals(ownId)) || (loginOwner != null && !loginOwner.equals(ownId))) {
+            throw new DuplicateKeyException("Пользователь с email " + user.email() + " или логином "
+                    + user.login() + " уже существует");
+        }
+    }
+
+    /**
+     * Вызывается под блокировкой хранилища
+     *
+     * @return номер записи журнала
+     */
+    private long insert(User user, StoredUser stored) {
+        int id = lastId.incrementAndGet();
+        long sequence = journal.write(stored.toRecord(id), this::apply);
+        user.setId(id);
+        return sequence;
+    }
+
+    /**
+     * Единственный путь изменения состояния: и для новых изменений под блокировкой,
+     * и при восстановлении из журнала. Повторное применение записи ничего не меняет
+     */
+    private void apply(JournalRecord record) {
+        switch (record) {
+            case UserPut put -> putUser(put);
+            case UserDelete delete -> removeUser(delete.userId());
+            case FriendAdd friend -> friendsIndex.addFriend(friend.userId(), friend.friendId());
+            case FriendRemove friend -> friendsIndex.removeFriend(friend.userId(), friend.friendId());
+            case UserFriends friends -> friendsIndex.putFriends(friends.userId(), friends.friendIds());
+            case UserSequence sequence -> lastId.accumulateAndGet(sequence.lastId(), Math::max);
+            default -> {
+                // Записи фильмов применяет InMemoryFilmStorage
+            }
+        }
+    }
+
+    private void putUser(UserPut put) {
+        int id = put.userId();
+        StoredUser stored = new StoredUser(put.email(), put.login(), put.name(), put.birthday());
+        StoredUser previous = users.put(id, stored);
+        if (previous != null) {
+            idsByEmail.remove(previous.email(), id);
+            idsByLogin.remove(previous.login(), id);
+        }
+        idsByEmail.put(stored.email(), id);
+        idsByLogin.put(stored.login(), id);
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    private void removeUser(int id) {
+        StoredUser removed = users.remove(id);
+        if (removed != null) {
+            idsByEmail.remove(removed.email(), id);
+            idsByLogin.remove(removed.login(), id);
+        }
+        friendsIndex.removeUser(id);
+        // Лайки пользователя удаляются вместе с ним, а с ними уменьшается рейтинг фильмов
+        for (int filmId : likesIndex.filmsLikedBy(id)) {
+            popularFilmsIndex.changeLikes(filmId, -1);
+            filmVersions.touch(filmId);
+        }
+        likesIndex.removeUser(id);
+    }
+
+    /**
+     * Состояние для снимка журнала: пользователь и сразу за ним весь список его друзей одной записью
+     */
+    private void export(Consumer<JournalRecord> sink) {
+        sink.accept(new UserSequence(lastId.get()));
+        for (int id : users.keys()) {
+            StoredUser user = users.get(id);
+            if (user == null) {
+                continue;
+            }
+            sink.accept(user.toRecord(id));
+            int[] friends = friendsIndex.friendsOf(id);
+            if (friends.length > 0) {
+                sink.accept(new UserFriends(id, friends));
+            }
+        }
+    }
+
+    private List<User> findUsersInOrder(int[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            StoredUser user = users.get(id);
+            if (user != null) {
+                result.add(toUser(id, user));
+            }
+        }
+        return result;
+    }
+
+    private User toUser(int id, StoredUser stored) {
+        User user = new User(id, stored.email(), stored.login(), stored.name(),
+                LocalDate.ofEpochDay(stored.birthday()));
+        int[] friendIds = friendsIndex.friendsOf(id);
+        Set<Integer> friends = new HashSet<>(Math.max(16, friendIds.length * 4 / 3 + 1));
+        for (int friendId : friendIds) {
+            friends.add(friendId);
+        }
+        user.setFriends(friends);
+        return user;
+    }
+
+    private Object friendLockFor(int userId) {
+        return friendLocks[userId & (LOCK_STRIPES - 1)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * Неизменяемая запись пользователя; дата рождения хранится номером дня
+     */
+    private record StoredUser(String email, String login, String name, long birthday) {
+
+        static StoredUser of(User user) {
+            return new StoredUser(user.getEmail(), user.getLogin(), user.getName(), user.getBirthday().toEpochDay());
+        }
+
+        UserPut toRecord(int id) {
+            return new UserPut(id, email, login, name, birthday);
+        }
+    }
+}
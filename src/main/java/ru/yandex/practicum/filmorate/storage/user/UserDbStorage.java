@@ -2,24 +2,41 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.AfterCommit;
+import ru.yandex.practicum.filmorate.storage.BulkLookup;
+import ru.yandex.practicum.filmorate.storage.film.FilmVersions;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounters;
+import ru.yandex.practicum.filmorate.storage.film.LikesIndex;
+import ru.yandex.practicum.filmorate.storage.film.PopularFilmsIndex;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Date;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Component
 @Primary
+@Profile("!in-memory")
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final BulkLookup bulkLookup;
+    private final FriendsIndex friendsIndex;
+    private final LikesIndex likesIndex;
+    private final FilmVersions filmVersions;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final LikeCounters likeCounters;
+
+    private static final String INSERT_USER = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
 
     @Override
     public List<User> findAll() {
@@ -51,17 +68,42 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
-    public User save(User user) {
-        String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+    public boolean existsById(Integer id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return true;
+        }
+        int[] found = new int[1];
+        bulkLookup.forEachRow("SELECT COUNT(*) FROM users WHERE id IN (%s)", distinctIds,
+                rs -> found[0] += rs.getInt(1));
+        return found[0] == distinctIds.size();
+    }
 
+    @Override
+    public List<User> findPage(Integer afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, afterId != null ? afterId : 0, limit);
+
+        if (!users.isEmpty()) {
+            loadFriendsForUsers(users);
+        }
+
+        return users;
+    }
+
+    @Override
+    public User save(User user) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sql, new String[]{"id"});
-            stmt.setString(1, user.getEmail());
-            stmt.setString(2, user.getLogin());
-            stmt.setString(3, user.getName());
-            stmt.setDate(4, Date.valueOf(user.getBirthday()));
+            PreparedStatement stmt = connection.prepareStatement(INSERT_USER, new String[]{"id"});
+            setUserParameters(stmt, user);
             return stmt;
         }, keyHolder);
 
@@ -69,6 +111,35 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    @Transactional
+    public void saveAll(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_USER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                        setUserParameters(stmt, users.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+    }
+
     @Override
     public User update(User user) {
         String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
@@ -82,21 +153,45 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public void delete(Integer id) {
-        String sql = "DELETE FROM users WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+        // Вместе с пользователем каскадно удаляются его лайки, поэтому счётчики лайкнутых им фильмов
+        // уменьшаются в той же транзакции, а с горячими счётчиками — очередным сбросом, как и сами лайки
+        List<Integer> likedFilmIds = jdbcTemplate.queryForList(
+                "SELECT film_id FROM film_likes WHERE user_id = ?", Integer.class, id);
+        boolean countersEnabled = likeCounters.isEnabled();
+        if (!likedFilmIds.isEmpty() && !countersEnabled) {
+            jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1, version = version + 1 " +
+                    "WHERE id IN (SELECT film_id FROM film_likes WHERE user_id = ?)", id);
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+
+        AfterCommit.run(() -> {
+            friendsIndex.removeUser(id);
+            likesIndex.removeUser(id);
+            if (countersEnabled) {
+                likedFilmIds.forEach(filmId -> likeCounters.add(filmId, -1));
+                return;
+            }
+            likedFilmIds.forEach(filmId -> {
+                popularFilmsIndex.changeLikes(filmId, -1);
+                filmVersions.touch(filmId);
+            });
+        });
     }
 
     @Override
     public void addFriend(Integer userId, Integer friendId) {
         String sql = "INSERT INTO friends (user_id, friend_id, confirmed) VALUES (?, ?, false)";
         jdbcTemplate.update(sql, userId, friendId);
+        AfterCommit.run(() -> friendsIndex.addFriend(userId, friendId));
     }
 
     @Override
     public void removeFriend(Integer userId, Integer friendId) {
         String sql = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
         jdbcTemplate.update(sql, userId, friendId);
+        AfterCommit.run(() -> friendsIndex.removeFriend(userId, friendId));
     }
 
     @Override
@@ -117,19 +212,50 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> findCommonFriends(Integer userId, Integer otherId) {
-        String sql = "SELECT u.* FROM users u " +
-                "JOIN friends f1 ON u.id = f1.friend_id " +
-                "JOIN friends f2 ON u.id = f2.friend_id " +
-                "WHERE f1.user_id = ? AND f2.user_id = ?";
+        // Пересечение отсортированных списков друзей из индекса; из БД читаются только сами пользователи
+        int[] commonIds = friendsIndex.commonFriends(userId, otherId);
+        return findUsersInOrder(commonIds);
+    }
 
-        List<User> commonFriends = jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
+    @Override
+    public List<User> findFriendSuggestions(Integer userId, int limit) {
+        return findUsersInOrder(friendsIndex.friendSuggestions(userId, limit));
+    }
 
-        // Загружаем друзей для каждого пользователя в списке
-        if (!commonFriends.isEmpty()) {
-            loadFriendsForUsers(commonFriends);
+    /**
+     * Загружает пользователей по ID из индекса дружбы, сохраняя порядок массива
+     */
+    private List<User> findUsersInOrder(int[] userIds) {
+        if (userIds.length == 0) {
+            return new ArrayList<>();
         }
 
-        return commonFriends;
+        Map<Integer, User> usersById = new HashMap<>(userIds.length * 4 / 3 + 1);
+        List<Integer> ids = new ArrayList<>(userIds.length);
+        for (int id : userIds) {
+            ids.add(id);
+        }
+        bulkLookup.forEachRow("SELECT * FROM users WHERE id IN (%s)", ids, rs -> {
+            User user = mapRowToUser(rs, 0);
+            usersById.put(user.getId(), user);
+        });
+
+        List<User> users = new ArrayList<>(usersById.size());
+        for (int id : userIds) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        loadFriendsForUsers(users);
+        return users;
+    }
+
+    private void setUserParameters(PreparedStatement stmt, User user) throws SQLException {
+        stmt.setString(1, user.getEmail());
+        stmt.setString(2, user.getLogin());
+        stmt.setString(3, user.getName());
+        stmt.setDate(4, Date.valueOf(user.getBirthday()));
     }
 
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
@@ -147,53 +273,21 @@ public class UserDbStorage implements UserStorage {
     }
 
     /**
-     * Получает множество ID друзей пользователя
+     * Получает множество ID друзей пользователя из индекса дружбы
      */
     private Set<Integer> getUserFriends(Integer userId) {
-        String sql = "SELECT friend_id FROM friends WHERE user_id = ?";
-        List<Integer> friendsList = jdbcTemplate.queryForList(sql, Integer.class, userId);
-        return new HashSet<>(friendsList);
+        int[] friendIds = friendsIndex.friendsOf(userId);
+        Set<Integer> friends = new HashSet<>(Math.max(16, friendIds.length * 4 / 3 + 1));
+        for (int friendId : friendIds) {
+            friends.add(friendId);
+        }
+        return friends;
     }
 
     /**
-     * Оптимизированная загрузка друзей для списка пользователей одним запросом
+     * Заполняет друзей для списка пользователей из индекса дружбы, без запросов к БД
      */
     private void loadFriendsForUsers(List<User> users) {
-        List<Integer> userIds = users.stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
-
-        if (userIds.isEmpty()) {
-            return;
-        }
-
-        // Создаем IN clause с нужным количеством параметров
-        String inClause = String.join(",", Collections.nCopies(userIds.size(), "?"));
-
-        String sql = String.format(
-                "SELECT user_id, friend_id FROM friends WHERE user_id IN (%s)",
-                inClause
-        );
-
-        // Выполняем запрос и маппим результаты
-        Map<Integer, Set<Integer>> friendsByUserId = jdbcTemplate.query(
-                sql,
-                userIds.toArray(),
-                rs -> {
-                    Map<Integer, Set<Integer>> result = new HashMap<>();
-                    while (rs.next()) {
-                        Integer userId = rs.getInt("user_id");
-                        Integer friendId = rs.getInt("friend_id");
-                        result.computeIfAbsent(userId, k -> new HashSet<>()).add(friendId);
-                    }
-                    return result;
-                }
-        );
-
-        // Устанавливаем друзей для каждого пользователя
-        users.forEach(user -> {
-            Set<Integer> friends = friendsByUserId.getOrDefault(user.getId(), new HashSet<>());
-            user.setFriends(friends);
-        });
+        users.forEach(user -> user.setFriends(getUserFriends(user.getId())));
     }
 }
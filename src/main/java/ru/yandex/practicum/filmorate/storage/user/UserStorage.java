@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,8 +11,28 @@ public interface UserStorage {
 
     Optional<User> findById(Integer id);
 
+    /**
+     * Проверка существования по первичному ключу без загрузки связанных данных
+     */
+    boolean existsById(Integer id);
+
+    /**
+     * true, если существуют все переданные ID
+     */
+    boolean existsAll(Collection<Integer> ids);
+
+    /**
+     * Страница пользователей с ID больше afterId в порядке возрастания ID
+     */
+    List<User> findPage(Integer afterId, int limit);
+
     User save(User user);
 
+    /**
+     * Пакетная вставка новых пользователей; после вызова у пользователей заполнены ID
+     */
+    void saveAll(List<User> users);
+
     User update(User user);
 
     void delete(Integer id);
@@ -23,4 +44,10 @@ public interface UserStorage {
     List<User> findFriends(Integer userId);
 
     List<User> findCommonFriends(Integer userId, Integer otherId);
+
+    /**
+     * Не более limit друзей друзей, не являющихся друзьями пользователя,
+     * в порядке убывания числа общих друзей
+     */
+    List<User> findFriendSuggestions(Integer userId, int limit);
 }
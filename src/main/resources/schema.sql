@@ -18,6 +18,8 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
     mpa_id INTEGER NOT NULL,
+    likes_count INTEGER NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_films_mpa FOREIGN KEY (mpa_id) REFERENCES mpa_ratings(id) ON DELETE RESTRICT
 );
 
@@ -63,6 +65,7 @@ CREATE TABLE IF NOT EXISTS friends (
 -- Индексы для таблицы films
 CREATE INDEX IF NOT EXISTS idx_films_mpa_id ON films(mpa_id);
 CREATE INDEX IF NOT EXISTS idx_films_release_date ON films(release_date);
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films(likes_count DESC, id);
 
 -- Индексы для таблицы film_genres
 CREATE INDEX IF NOT EXISTS idx_film_genres_film_id ON film_genres(film_id);
@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"spring.main.banner-mode=off"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class CatalogDumpIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDatabaseCleaner testDatabaseCleaner;
+
+    @BeforeEach
+    public void setUp() {
+        testDatabaseCleaner.cleanDatabase();
+    }
+
+    @Test
+    public void shouldRestoreCatalogFromExport() throws Exception {
+        User first = createUser("dump1@mail.ru", "dump1", "Первый");
+        User second = createUser("dump2@mail.ru", "dump2", null);
+        Film film = createFilm("Фильм", "Описание", List.of(1, 3));
+        Film other = createFilm("Другой", null, List.of());
+        mockMvc.perform(put("/films/{id}/like/{userId}", film.getId(), first.getId()));
+        mockMvc.perform(put("/films/{id}/like/{userId}", film.getId(), second.getId()));
+        mockMvc.perform(put("/films/{id}/like/{userId}", other.getId(), second.getId()));
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", first.getId(), second.getId()));
+
+        byte[] dump = exportCatalog();
+        testDatabaseCleaner.cleanDatabase();
+
+        mockMvc.perform(post("/catalog/import")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(dump))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").value(2))
+                .andExpect(jsonPath("$.films").value(2))
+                .andExpect(jsonPath("$.filmGenres").value(2))
+                .andExpect(jsonPath("$.filmLikes").value(3))
+                .andExpect(jsonPath("$.friends").value(1));
+
+        mockMvc.perform(get("/films/{id}", film.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Фильм"))
+                .andExpect(jsonPath("$.releaseDate").value("2000-01-01"))
+                .andExpect(jsonPath("$.genres.length()").value(2))
+                .andExpect(jsonPath("$.rate").value(2));
+        mockMvc.perform(get("/films/{id}", other.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value(nullValue()));
+        mockMvc.perform(get("/films/popular?count=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(film.getId()));
+        mockMvc.perform(get("/users/{id}/friends", first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(second.getId()));
+
+        // Новые записи продолжают нумерацию загруженных
+        User third = createUser("dump3@mail.ru", "dump3", "Третий");
+        Film next = createFilm("Следующий", "Описание", List.of());
+        assertThat(third.getId()).isEqualTo(second.getId() + 1);
+        assertThat(next.getId()).isEqualTo(other.getId() + 1);
+    }
+
+    @Test
+    public void shouldRejectImportIntoNonEmptyDatabase() throws Exception {
+        createUser("dump1@mail.ru", "dump1", "Первый");
+        byte[] dump = exportCatalog();
+
+        mockMvc.perform(post("/catalog/import")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(dump))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldRejectCorruptedDump() throws Exception {
+        createFilm("Фильм", "Описание", List.of(1));
+        byte[] dump = exportCatalog();
+        testDatabaseCleaner.cleanDatabase();
+
+        // Порча байта в середине файла обнаруживается по контрольной сумме, загрузка откатывается
+        dump[dump.length / 2] ^= 0x40;
+        mockMvc.perform(post("/catalog/import")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(dump))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(post("/catalog/import")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isBadRequest());
+    }
+
+    private byte[] exportCatalog() throws Exception {
+        MvcResult result = mockMvc.perform(get("/catalog/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private User createUser(String email, String login, String name) throws Exception {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(login);
+        user.setName(name);
+        user.setBirthday(LocalDate.of(1990, 5, 17));
+
+        String response = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readValue(response, User.class);
+    }
+
+    private Film createFilm(String name, String description, List<Integer> genreIds) throws Exception {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        for (Integer genreId : genreIds) {
+            Genre genre = new Genre();
+            genre.setId(genreId);
+            film.getGenres().add(genre);
+        }
+
+        String response = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(film)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readValue(response, Film.class);
+    }
+}
@@ -138,4 +138,111 @@ public class FilmControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray());
     }
+
+    @Test
+    public void shouldPageFilmsByKeyset() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(120);
+            film.setMpa(new Mpa(1, null));
+
+            mockMvc.perform(post("/films")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(film)))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/films?limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        mockMvc.perform(get("/films?after=2&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        mockMvc.perform(get("/films?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldImportFilmsInBatchAndReportInvalidItems() throws Exception {
+        String body = "[" +
+                "{\"name\":\"Первый\",\"description\":\"Описание\",\"releaseDate\":\"2000-01-01\"," +
+                "\"duration\":100,\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2}]}," +
+                "{\"name\":\"\",\"description\":\"Описание\",\"releaseDate\":\"2000-01-01\"," +
+                "\"duration\":100,\"mpa\":{\"id\":1}}," +
+                "{\"name\":\"Третий\",\"description\":\"Описание\",\"releaseDate\":\"2000-01-01\"," +
+                "\"duration\":100,\"mpa\":{\"id\":99}}," +
+                "{\"name\":\"Четвёртый\",\"description\":\"Описание\",\"releaseDate\":\"2001-01-01\"," +
+                "\"duration\":90,\"mpa\":{\"id\":2}}" +
+                "]";
+
+        mockMvc.perform(post("/films/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.errors.length()").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[1].index").value(2));
+
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].genres.length()").value(2));
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedUntilFilmChanges() throws Exception {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new Mpa(1, null));
+
+        String response = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(film)))
+                .andReturn().getResponse().getContentAsString();
+        Film createdFilm = objectMapper.readValue(response, Film.class);
+
+        String etag = mockMvc.perform(get("/films/{id}", createdFilm.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        String catalogEtag = mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/films/{id}", createdFilm.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/films").header("If-None-Match", catalogEtag))
+                .andExpect(status().isNotModified());
+
+        createdFilm.setName("Новое название");
+        mockMvc.perform(put("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createdFilm)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/{id}", createdFilm.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Новое название"));
+        mockMvc.perform(get("/films").header("If-None-Match", catalogEtag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "max-age=300"));
+    }
 }
@@ -96,6 +96,35 @@ public class FilmFriendsIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldRecommendFilmsLikedBySimilarUsers() throws Exception {
+        String uniqueId = UUID.randomUUID().toString().substring(0, 8);
+
+        User user = createUser("rec1_" + uniqueId + "@mail.ru", "rec1_" + uniqueId);
+        User similar = createUser("rec2_" + uniqueId + "@mail.ru", "rec2_" + uniqueId);
+        User other = createUser("rec3_" + uniqueId + "@mail.ru", "rec3_" + uniqueId);
+        Film shared = createFilm("Shared " + uniqueId, "Description");
+        Film recommended = createFilm("Recommended " + uniqueId, "Description");
+        Film unrelated = createFilm("Unrelated " + uniqueId, "Description");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", shared.getId(), user.getId()));
+        mockMvc.perform(put("/films/{id}/like/{userId}", shared.getId(), similar.getId()));
+        mockMvc.perform(put("/films/{id}/like/{userId}", recommended.getId(), similar.getId()));
+        mockMvc.perform(put("/films/{id}/like/{userId}", unrelated.getId(), other.getId()));
+
+        mockMvc.perform(get("/users/{id}/recommendations", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(recommended.getId()));
+
+        // Собственный лайк сбрасывает кэш рекомендаций
+        mockMvc.perform(put("/films/{id}/like/{userId}", recommended.getId(), user.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}/recommendations", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
     private User createUser(String email, String login) throws Exception {
         User user = new User();
         user.setEmail(email);
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.metrics.StatementCountingDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"spring.main.banner-mode=off", "filmorate.metrics.sql-statements.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class FilmQueryCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDatabaseCleaner testDatabaseCleaner;
+
+    @BeforeEach
+    public void setUp() {
+        testDatabaseCleaner.cleanDatabase();
+    }
+
+    @Test
+    public void getAllFilmsShouldIssueConstantNumberOfStatements() throws Exception {
+        createFilm("Фильм 1");
+        long statementsForOneFilm = countStatementsForGetAllFilms(1);
+
+        for (int i = 2; i <= 10; i++) {
+            createFilm("Фильм " + i);
+        }
+        long statementsForTenFilms = countStatementsForGetAllFilms(10);
+
+        assertThat(statementsForTenFilms).isEqualTo(statementsForOneFilm);
+    }
+
+    private long countStatementsForGetAllFilms(int expectedFilms) throws Exception {
+        long before = StatementCountingDataSource.totalStatements();
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(expectedFilms));
+        return StatementCountingDataSource.totalStatements() - before;
+    }
+
+    private void createFilm(String name) throws Exception {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new Mpa(1, null));
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(film)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Те же сценарии, что и в {@link FilmFriendsIntegrationTest}, на хранилищах профиля in-memory
+ */
+@ActiveProfiles("in-memory")
+public class InMemoryFilmFriendsIntegrationTest extends FilmFriendsIntegrationTest {
+}
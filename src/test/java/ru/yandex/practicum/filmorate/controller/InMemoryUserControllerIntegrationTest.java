@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Те же сценарии, что и в {@link UserControllerIntegrationTest}, на хранилищах профиля in-memory
+ */
+@ActiveProfiles("in-memory")
+public class InMemoryUserControllerIntegrationTest extends UserControllerIntegrationTest {
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"spring.main.banner-mode=off", "filmorate.metrics.sql-statements.enabled=true"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDatabaseCleaner testDatabaseCleaner;
+
+    @BeforeEach
+    public void setUp() {
+        testDatabaseCleaner.cleanDatabase();
+    }
+
+    @Test
+    public void shouldExposeEndpointStorageSqlAndPoolMetrics() throws Exception {
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("uri=\"/films\"")))
+                .andExpect(content().string(containsString("filmorate_storage_seconds_count")))
+                .andExpect(content().string(containsString("method=\"findAll\"")))
+                .andExpect(content().string(containsString("filmorate_sql_statements_per_request_count")))
+                .andExpect(content().string(containsString("filmorate_sql_statements_total")))
+                .andExpect(content().string(containsString("hikaricp_connections")));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
@@ -55,4 +56,49 @@ public class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$.login").value("testlogin" + uniqueId))
                 .andExpect(jsonPath("$.name").value("testlogin" + uniqueId));
     }
+
+    @Test
+    public void shouldStreamAllUsers() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("stream" + i + "@mail.ru");
+            user.setLogin("stream" + i);
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+
+            mockMvc.perform(post("/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(user)))
+                    .andExpect(status().isOk());
+        }
+
+        MvcResult result = mockMvc.perform(get("/users?stream=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].login").value("stream1"))
+                .andExpect(jsonPath("$[2].login").value("stream3"));
+    }
+
+    @Test
+    public void shouldImportNdjsonUsersAndReportDuplicates() throws Exception {
+        String body = "{\"email\":\"first@mail.ru\",\"login\":\"first\",\"birthday\":\"2000-01-01\"}\n" +
+                "{\"email\":\"second@mail.ru\",\"login\":\"second\",\"birthday\":\"2000-01-01\"}\n" +
+                "{\"email\":\"third@mail.ru\",\"login\":\"first\",\"birthday\":\"2000-01-01\"}\n";
+
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.errors.length()").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(2));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("first"));
+    }
 }
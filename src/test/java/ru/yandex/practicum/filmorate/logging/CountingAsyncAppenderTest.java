@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountingAsyncAppenderTest {
+
+    @Test
+    public void testEventsBeyondFullQueueAreCountedAsDropped() throws InterruptedException {
+        // Контекст приложения: у него, в отличие от нового LoggerContext, есть MDC-адаптер для событий
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger logger = context.getLogger("ru.yandex.practicum.filmorate.controller.FilmController");
+        BlockingAppender blocking = new BlockingAppender();
+        blocking.setContext(context);
+        blocking.start();
+
+        CountingAsyncAppender appender = new CountingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(1);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(blocking);
+        appender.start();
+
+        long before = CountingAsyncAppender.droppedEvents();
+        try {
+            // Первое событие занимает рабочий поток, второе — единственное место в очереди
+            appender.doAppend(event(logger, "первое"));
+            assertThat(blocking.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            appender.doAppend(event(logger, "второе"));
+
+            appender.doAppend(event(logger, "третье"));
+            appender.doAppend(event(logger, "четвёртое"));
+
+            assertThat(CountingAsyncAppender.droppedEvents() - before).isEqualTo(2);
+        } finally {
+            blocking.release.countDown();
+            appender.stop();
+        }
+    }
+
+    private static ILoggingEvent event(Logger logger, String message) {
+        return new LoggingEvent(Logger.class.getName(), logger, Level.INFO, message, null, null);
+    }
+
+    /**
+     * Держит рабочий поток асинхронного аппендера, пока тест не отпустит его
+     */
+    private static final class BlockingAppender extends AppenderBase<ILoggingEvent> {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
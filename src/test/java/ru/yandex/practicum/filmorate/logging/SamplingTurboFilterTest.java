@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SamplingTurboFilterTest {
+    private final LoggerContext context = new LoggerContext();
+    private final Logger controllerLogger = context.getLogger("ru.yandex.practicum.filmorate.controller.Films");
+    private final Logger storageLogger = context.getLogger("ru.yandex.practicum.filmorate.storage.Films");
+
+    @AfterEach
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    public void testRequestDecisionAppliesToEveryEvent() {
+        SamplingTurboFilter filter = createFilter(0.5);
+
+        MDC.put(SamplingTurboFilter.SAMPLED_KEY, "false");
+        assertThat(decide(filter, controllerLogger, Level.INFO)).isEqualTo(FilterReply.DENY);
+        assertThat(decide(filter, controllerLogger, Level.DEBUG)).isEqualTo(FilterReply.DENY);
+        // WARN и логгеры вне префикса выборка не затрагивает
+        assertThat(decide(filter, controllerLogger, Level.WARN)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(filter, storageLogger, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+
+        MDC.put(SamplingTurboFilter.SAMPLED_KEY, "true");
+        for (int i = 0; i < 100; i++) {
+            assertThat(decide(filter, controllerLogger, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+        }
+    }
+
+    @Test
+    public void testServletFilterDecidesOncePerRequest() throws Exception {
+        SamplingTurboFilter turboFilter = createFilter(0.5);
+        RequestLogSamplingFilter requestFilter = new RequestLogSamplingFilter(0.5);
+
+        Set<FilterReply> outcomes = EnumSet.noneOf(FilterReply.class);
+        for (int request = 0; request < 200; request++) {
+            Set<FilterReply> replies = EnumSet.noneOf(FilterReply.class);
+            requestFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, res) -> {
+                for (int i = 0; i < 50; i++) {
+                    replies.add(decide(turboFilter, controllerLogger, Level.INFO));
+                }
+            });
+
+            assertThat(replies).hasSize(1);
+            outcomes.addAll(replies);
+            assertThat(MDC.get(SamplingTurboFilter.SAMPLED_KEY)).isNull();
+        }
+        // При доле 0.5 за 200 запросов встречаются оба исхода
+        assertThat(outcomes).containsExactlyInAnyOrder(FilterReply.NEUTRAL, FilterReply.DENY);
+    }
+
+    private SamplingTurboFilter createFilter(double sampleRate) {
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.setLoggerPrefix("ru.yandex.practicum.filmorate.controller");
+        filter.setSampleRate(sampleRate);
+        return filter;
+    }
+
+    private FilterReply decide(SamplingTurboFilter filter, Logger logger, Level level) {
+        return filter.decide(null, logger, level, "Запрос {}", null, null);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.LikesIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecommendationServiceTest {
+    private static final int USER_ID = 1;
+    private static final int SIMILAR_USER_ID = 5000;
+
+    @Test
+    public void testSimilarUserWithIdAboveLikersCapIsFound() {
+        LikesIndex likesIndex = new LikesIndex(null);
+        RecommendationService service = new RecommendationService(likesIndex, null, null);
+
+        // У каждого фильма пользователя 1500 лайков; самый похожий пользователь стоит в списке на позиции 1000,
+        // то есть за пределами первых LIKERS_PER_FILM
+        likeByCrowd(likesIndex, 1, 100, 6000);
+        likeByCrowd(likesIndex, 2, 2000, 7000);
+        likesIndex.addLike(3, SIMILAR_USER_ID);
+
+        assertThat(likesIndex.usersWhoLiked(1)).hasSizeGreaterThan(RecommendationService.LIKERS_PER_FILM);
+        assertThat(service.recommendedFilmIds(USER_ID)).containsExactly(3);
+    }
+
+    private void likeByCrowd(LikesIndex likesIndex, int filmId, int lowerFrom, int upperFrom) {
+        likesIndex.addLike(filmId, USER_ID);
+        for (int userId = lowerFrom; userId < lowerFrom + 999; userId++) {
+            likesIndex.addLike(filmId, userId);
+        }
+        likesIndex.addLike(filmId, SIMILAR_USER_ID);
+        for (int userId = upperFrom; userId < upperFrom + 499; userId++) {
+            likesIndex.addLike(filmId, userId);
+        }
+    }
+}
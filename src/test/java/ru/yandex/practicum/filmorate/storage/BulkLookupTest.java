@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({BulkLookup.class})
+public class BulkLookupTest {
+
+    private static final String SELECT_GENRE_IDS = "SELECT id FROM genres WHERE id IN (%s) ORDER BY id";
+
+    private final BulkLookup bulkLookup;
+
+    @Test
+    public void testForEachRowSplitsLongIdLists() {
+        List<Integer> ids = IntStream.rangeClosed(1, 300).boxed().collect(Collectors.toList());
+
+        List<Integer> found = new ArrayList<>();
+        bulkLookup.forEachRow(SELECT_GENRE_IDS, ids, rs -> found.add(rs.getInt("id")));
+
+        assertThat(found).containsExactly(1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    public void testForEachRowWithPaddedChunk() {
+        List<Integer> found = new ArrayList<>();
+        bulkLookup.forEachRow(SELECT_GENRE_IDS, List.of(2, 4, 6), rs -> found.add(rs.getInt("id")));
+
+        assertThat(found).containsExactly(2, 4, 6);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тёплый перезапуск профиля persistent: приложение дважды поднимается на одном файле БД
+ */
+public class ExistingSchemaAwareInitializerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testDataSurvivesRestart() {
+        int firstFilmId;
+        int secondFilmId;
+        int userId;
+        try (ConfigurableApplicationContext context = start()) {
+            FilmStorage filmStorage = context.getBean(FilmStorage.class);
+            UserStorage userStorage = context.getBean(UserStorage.class);
+            firstFilmId = filmStorage.save(createFilm("Первый")).getId();
+            secondFilmId = filmStorage.save(createFilm("Второй")).getId();
+            userId = userStorage.save(createUser()).getId();
+            filmStorage.addLike(secondFilmId, userId);
+            // Если бы data.sql выполнился повторно, MERGE вернул бы жанру исходное название
+            context.getBean(JdbcTemplate.class).update("UPDATE genres SET name = 'Вестерн' WHERE id = 6");
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            FilmStorage filmStorage = context.getBean(FilmStorage.class);
+            UserStorage userStorage = context.getBean(UserStorage.class);
+
+            assertThat(filmStorage.findAll()).extracting(Film::getName)
+                    .containsExactlyInAnyOrder("Первый", "Второй");
+            assertThat(userStorage.existsById(userId)).isTrue();
+            assertThat(context.getBean(GenreStorage.class).getGenreById(6))
+                    .hasValueSatisfying(genre -> assertThat(genre.getName()).isEqualTo("Вестерн"));
+
+            // Индексы в памяти построены по сохранённым данным
+            assertThat(filmStorage.findPopularFilms(2, null, null))
+                    .extracting(Film::getId)
+                    .containsExactly(secondFilmId, firstFilmId);
+
+            // Счётчики AUTO_INCREMENT продолжают с прежнего максимума
+            assertThat(filmStorage.save(createFilm("Третий")).getId()).isGreaterThan(secondFilmId);
+            assertThat(userStorage.save(createUser()).getId()).isGreaterThan(userId);
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles("persistent")
+                .properties(
+                        "filmorate.storage.file=" + directory.resolve("filmorate").toAbsolutePath(),
+                        "spring.main.web-application-type=none",
+                        "spring.main.banner-mode=off")
+                .run();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setEmail("restart" + System.nanoTime() + "@mail.ru");
+        user.setLogin("restart" + System.nanoTime());
+        user.setName("Перезапуск");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        return film;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
 
@@ -13,6 +14,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -21,6 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class GenreDbStorageTest {
 
     private final GenreDbStorage genreStorage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     public void testGetAllGenres() {
@@ -42,4 +45,41 @@ public class GenreDbStorageTest {
                                 .hasFieldOrPropertyWithValue("name", "Комедия")
                 );
     }
+
+    @Test
+    public void testExistsById() {
+        assertThat(genreStorage.existsById(1)).isTrue();
+        assertThat(genreStorage.existsById(6)).isTrue();
+        assertThat(genreStorage.existsById(999)).isFalse();
+        assertThat(genreStorage.existsById(-1)).isFalse();
+    }
+
+    @Test
+    public void testReturnedGenresAreSharedAndReadOnly() {
+        Genre genre = genreStorage.getGenreById(1).orElseThrow();
+
+        assertThat(genreStorage.getGenreById(1)).containsSame(genre);
+        assertThat(genreStorage.getAllGenres().get(0)).isSameAs(genre);
+        assertThat(genre).isEqualTo(new Genre(1, "Комедия"));
+        assertThatThrownBy(() -> genre.setName("Испорчено")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(genreStorage.getGenreById(1))
+                .hasValueSatisfying(cached -> assertThat(cached.getName()).isEqualTo("Комедия"));
+    }
+
+    @Test
+    public void testMissingGenreIsCachedUntilRebuild() {
+        assertThat(genreStorage.getGenreById(100)).isEmpty();
+
+        // Запись появилась в обход хранилища: промах уже запомнен, поэтому в БД за ней не идём
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (100, 'Вестерн')");
+        assertThat(genreStorage.getGenreById(100)).isEmpty();
+
+        genreStorage.rebuild();
+        assertThat(genreStorage.getGenreById(100))
+                .hasValueSatisfying(genre -> assertThat(genre.getName()).isEqualTo("Вестерн"));
+
+        // Откат транзакции теста не затронет кэш, поэтому возвращаем справочник вручную
+        jdbcTemplate.update("DELETE FROM genres WHERE id = 100");
+        genreStorage.rebuild();
+    }
 }
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IntObjectMapTest {
+
+    @Test
+    public void testPutReplaceAndRemove() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertThat(map.put(1, "первый")).isNull();
+        assertThat(map.put(1, "заменён")).isEqualTo("первый");
+        assertThat(map.get(1)).isEqualTo("заменён");
+        assertThat(map.get(2)).isNull();
+
+        assertThat(map.remove(1)).isEqualTo("заменён");
+        assertThat(map.remove(1)).isNull();
+        assertThat(map.containsKey(1)).isFalse();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    public void testMatchesHashMapAfterRandomUpdatesAndResizes() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Частые удаления проверяют сдвиг цепочек пробирования, рост — перенос в увеличенные таблицы
+        for (int i = 0; i < 200_000; i++) {
+            int key = 1 + random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        assertThat(map.keys()).containsExactly(expected.keySet().stream().mapToInt(Integer::intValue).sorted()
+                .toArray());
+    }
+
+    @Test
+    public void testConcurrentWritersOnDisjointKeys() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+
+        IntStream.range(0, 8).parallel().forEach(writer -> {
+            for (int key = 1 + writer; key <= 80_000; key += 8) {
+                map.put(key, -key);
+            }
+        });
+
+        assertThat(map.size()).isEqualTo(80_000);
+        IntStream.rangeClosed(1, 80_000).forEach(key -> assertThat(map.get(key)).isEqualTo(-key));
+    }
+
+    @Test
+    public void testRejectsNonPositiveKeys() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertThatThrownBy(() -> map.put(0, "ноль")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(map.get(0)).isNull();
+    }
+}
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -40,4 +41,16 @@ public class MpaDbStorageTest {
                         assertThat(mpa).hasFieldOrPropertyWithValue("id", 1)
                 );
     }
+
+    @Test
+    public void testReturnedMpaAreSharedAndReadOnly() {
+        Mpa mpa = mpaStorage.getMpaById(1).orElseThrow();
+        String name = mpa.getName();
+
+        assertThat(mpaStorage.getMpaById(1)).containsSame(mpa);
+        assertThat(mpaStorage.getAllMpa().get(0)).isSameAs(mpa);
+        assertThatThrownBy(() -> mpa.setName("Испорчено")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(mpaStorage.getMpaById(1))
+                .hasValueSatisfying(cached -> assertThat(cached.getName()).isEqualTo(name));
+    }
 }
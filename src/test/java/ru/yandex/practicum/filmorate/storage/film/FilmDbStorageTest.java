@@ -1,28 +1,72 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
-import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.BulkLookup;
 import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendsIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmDbStorage.class, GenreDbStorage.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TestDatabaseCleaner.class, FilmDbStorage.class, InMemoryFilmStorage.class, PopularFilmsIndex.class,
+        LikesIndex.class, FilmSearchIndex.class, GenreDbStorage.class, FilmVersions.class, LikeCounters.class,
+        UserDbStorage.class, InMemoryUserStorage.class, FriendsIndex.class, BulkLookup.class, MpaDbStorage.class,
+        StorageJournal.class})
 public class FilmDbStorageTest {
 
-    private final FilmDbStorage filmStorage;
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private TestDatabaseCleaner testDatabaseCleaner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        testDatabaseCleaner.cleanDatabase();
+    }
 
     @Test
     public void testFindFilmById() {
@@ -66,6 +110,24 @@ public class FilmDbStorageTest {
         assertThat(savedFilm.getMpa().getId()).isEqualTo(1);
     }
 
+    @Test
+    public void testSaveAllStoresNothingWhenItemFailsMidBatch() {
+        Film first = createFilm("First Film");
+        Film broken = createFilm("Broken Film");
+        broken.setMpa(null);
+        Film last = createFilm("Last Film");
+
+        assertThatThrownBy(() -> filmStorage.saveAll(List.of(first, broken, last)))
+                .isInstanceOf(RuntimeException.class);
+
+        // Пакетная загрузка после ошибки пакета сохраняет элементы по одному — без повторов
+        assertThat(filmStorage.findAll()).isEmpty();
+        filmStorage.save(first);
+        filmStorage.save(last);
+        assertThat(filmStorage.findAll()).extracting(Film::getName)
+                .containsExactlyInAnyOrder("First Film", "Last Film");
+    }
+
     @Test
     public void testUpdateFilm() {
         Film film = new Film();
@@ -88,4 +150,308 @@ public class FilmDbStorageTest {
         assertThat(updatedFilm.getName()).isEqualTo("Updated Film");
         assertThat(updatedFilm.getDescription()).isEqualTo("Updated Description");
     }
+
+    @Test
+    public void testPopularFilmsFollowLikesCount() {
+        Film first = filmStorage.save(createFilm("First Film"));
+        Film second = filmStorage.save(createFilm("Second Film"));
+
+        User user = new User();
+        user.setEmail("popular@mail.ru");
+        user.setLogin("popular");
+        user.setName("Popular");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        User savedUser = userStorage.save(user);
+
+        filmStorage.addLike(second.getId(), savedUser.getId());
+
+        List<Film> popular = filmStorage.findPopularFilms(1, null, null);
+        assertThat(popular).hasSize(1);
+        assertThat(popular.get(0).getId()).isEqualTo(second.getId());
+        assertThat(popular.get(0).getRate()).isEqualTo(1);
+
+        filmStorage.removeLike(second.getId(), savedUser.getId());
+
+        assertThat(filmStorage.findById(second.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(0));
+        assertThat(filmStorage.findById(first.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(0));
+    }
+
+    @Test
+    public void testPopularFilmsFilteredByGenreAndYear() {
+        Film comedy = createFilm("Comedy 1971");
+        comedy.setReleaseDate(LocalDate.of(1971, 5, 1));
+        comedy.setGenres(List.of(new Genre(1, null)));
+        comedy = filmStorage.save(comedy);
+
+        Film drama = createFilm("Drama 1971");
+        drama.setReleaseDate(LocalDate.of(1971, 6, 1));
+        drama.setGenres(List.of(new Genre(2, null)));
+        drama = filmStorage.save(drama);
+
+        Film laterComedy = createFilm("Comedy 1972");
+        laterComedy.setReleaseDate(LocalDate.of(1972, 1, 1));
+        laterComedy.setGenres(List.of(new Genre(1, null)));
+        laterComedy = filmStorage.save(laterComedy);
+
+        User user = userStorage.save(createUser("filtered"));
+        filmStorage.addLike(drama.getId(), user.getId());
+
+        assertThat(filmStorage.findPopularFilms(10, null, 1971))
+                .extracting(Film::getId)
+                .containsExactly(drama.getId(), comedy.getId());
+        assertThat(filmStorage.findPopularFilms(10, 1, 1971))
+                .extracting(Film::getId)
+                .containsExactly(comedy.getId());
+
+        // Смена года и жанров переносит фильм в другие рейтинги
+        laterComedy.setReleaseDate(LocalDate.of(1971, 12, 31));
+        laterComedy.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        filmStorage.update(laterComedy);
+
+        assertThat(filmStorage.findPopularFilms(10, 2, 1971))
+                .extracting(Film::getId)
+                .containsExactly(drama.getId(), laterComedy.getId());
+        assertThat(filmStorage.findPopularFilms(10, null, 1972)).isEmpty();
+    }
+
+    @Test
+    public void testSearchFilmsByTitleAndDescription() {
+        Film titleMatch = createFilm("Ёжик в тумане");
+        titleMatch.setDescription("Мультфильм");
+        titleMatch = filmStorage.save(titleMatch);
+
+        Film descriptionMatch = createFilm("Сказка сказок");
+        descriptionMatch.setDescription("Волчок, ежики и туманное утро");
+        descriptionMatch = filmStorage.save(descriptionMatch);
+
+        // Регистр и «ё» не важны, слово запроса может быть префиксом
+        assertThat(filmStorage.searchFilms("ЕЖИК туман", true, true, false, 10))
+                .extracting(Film::getId)
+                .containsExactly(titleMatch.getId(), descriptionMatch.getId());
+        assertThat(filmStorage.searchFilms("ежик", true, false, false, 10))
+                .extracting(Film::getId)
+                .containsExactly(titleMatch.getId());
+
+        User user = userStorage.save(createUser("searcher"));
+        Film otherTitleMatch = createFilm("Туман");
+        otherTitleMatch = filmStorage.save(otherTitleMatch);
+        filmStorage.addLike(otherTitleMatch.getId(), user.getId());
+
+        // При равной релевантности можно поднять выше фильм с большим числом лайков
+        assertThat(filmStorage.searchFilms("тума", true, false, false, 10))
+                .extracting(Film::getId)
+                .containsExactly(titleMatch.getId(), otherTitleMatch.getId());
+        assertThat(filmStorage.searchFilms("тума", true, false, true, 10))
+                .extracting(Film::getId)
+                .containsExactly(otherTitleMatch.getId(), titleMatch.getId());
+
+        otherTitleMatch.setName("Солярис");
+        filmStorage.update(otherTitleMatch);
+        assertThat(filmStorage.searchFilms("тума", true, false, true, 10))
+                .extracting(Film::getId)
+                .containsExactly(titleMatch.getId());
+    }
+
+    @Test
+    public void testUpdateFilmGenresAppliesOnlyDifference() {
+        Film film = createFilm("Genre Film");
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null), new Genre(2, null)));
+        Film savedFilm = filmStorage.save(film);
+
+        assertThat(savedFilm.getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(savedFilm.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+
+        savedFilm.setGenres(List.of(new Genre(3, null), new Genre(2, null)));
+        filmStorage.update(savedFilm);
+
+        assertThat(filmStorage.findById(savedFilm.getId()))
+                .hasValueSatisfying(f ->
+                        assertThat(f.getGenres()).extracting(Genre::getId).containsExactly(2, 3));
+
+        savedFilm.setGenres(null);
+        filmStorage.update(savedFilm);
+
+        assertThat(filmStorage.findById(savedFilm.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getGenres()).isEmpty());
+    }
+
+    @Test
+    public void testFindAllReturnsGenresOrderedById() {
+        Film film = createFilm("Many Genres Film");
+        film.setGenres(List.of(new Genre(3, null), new Genre(1, null), new Genre(2, null)));
+        filmStorage.save(film);
+
+        assertThat(filmStorage.findAll())
+                .singleElement()
+                .satisfies(f -> assertThat(f.getGenres()).extracting(Genre::getId).containsExactly(1, 2, 3));
+    }
+
+    @Test
+    public void testApplyLikesCoalescesAndSkipsNoOps() {
+        Film film = filmStorage.save(createFilm("Batch Likes Film"));
+        User first = userStorage.save(createUser("batch1"));
+        User second = userStorage.save(createUser("batch2"));
+
+        int applied = filmStorage.applyLikes(List.of(
+                new LikeEvent(film.getId(), first.getId(), true),
+                new LikeEvent(film.getId(), second.getId(), true),
+                new LikeEvent(film.getId(), second.getId(), false),
+                new LikeEvent(film.getId(), second.getId(), true),
+                new LikeEvent(film.getId(), 999_999, true)
+        ));
+
+        assertThat(applied).isEqualTo(2);
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(2));
+
+        assertThat(filmStorage.applyLikes(List.of(new LikeEvent(film.getId(), first.getId(), true)))).isZero();
+    }
+
+    @Test
+    public void testWriteBehindBufferFlushesQueuedLikes() throws InterruptedException {
+        Film film = filmStorage.save(createFilm("Buffered Film"));
+        User user = userStorage.save(createUser("buffered"));
+
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, true, 10, 100, 60_000, 10, false);
+        buffer.submit(new LikeEvent(film.getId(), user.getId(), true));
+
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(0));
+
+        buffer.shutdown();
+
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(1));
+    }
+
+    @Test
+    public void testWriteBehindBufferWritesSynchronouslyAfterShutdown() throws InterruptedException {
+        Film film = filmStorage.save(createFilm("Late Film"));
+        User user = userStorage.save(createUser("late"));
+
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, true, 10, 1, 60_000, 10, false);
+        buffer.shutdown();
+        buffer.submit(new LikeEvent(film.getId(), user.getId(), true));
+
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(1));
+    }
+
+    @Test
+    public void testWriteBehindBufferKeepsBatchThatFailed() throws InterruptedException {
+        Film film = filmStorage.save(createFilm("Retried Film"));
+        User user = userStorage.save(createUser("retried"));
+
+        // Первая запись пакета падает, как при недоступной БД
+        AtomicBoolean failing = new AtomicBoolean(true);
+        FilmStorage flakyStorage = (FilmStorage) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FilmStorage.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("applyLikes") && failing.getAndSet(false)) {
+                        throw new CannotGetJdbcConnectionException("БД недоступна");
+                    }
+                    try {
+                        return method.invoke(filmStorage, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(flakyStorage, true, 10, 100, 60_000, 10, false);
+        buffer.submit(new LikeEvent(film.getId(), user.getId(), true));
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(CannotGetJdbcConnectionException.class);
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isZero());
+
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(1));
+        buffer.shutdown();
+    }
+
+    @Test
+    public void testRolledBackFilmDoesNotReachPopular() {
+        assumeDatabaseStorage();
+        Film kept = filmStorage.save(createFilm("Kept Film"));
+        User user = userStorage.save(createUser("rollback"));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Film ghost = filmStorage.save(createFilm("Ghost Film"));
+            filmStorage.addLike(ghost.getId(), user.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(filmStorage.findPopularFilms(10, null, null))
+                .extracting(Film::getId)
+                .containsExactly(kept.getId());
+    }
+
+    @Test
+    public void testRolledBackUpdateKeepsVersionTag() {
+        assumeDatabaseStorage();
+        Film film = filmStorage.save(createFilm("Versioned Film"));
+        User user = userStorage.save(createUser("versioned"));
+        String filmTag = filmStorage.versionTag(film.getId());
+        String catalogTag = filmStorage.catalogVersionTag();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            film.setName("Renamed Film");
+            filmStorage.update(film);
+            filmStorage.addLike(film.getId(), user.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(filmStorage.versionTag(film.getId())).isEqualTo(filmTag);
+        assertThat(filmStorage.catalogVersionTag()).isEqualTo(catalogTag);
+
+        filmStorage.addLike(film.getId(), user.getId());
+        assertThat(filmStorage.versionTag(film.getId())).isNotEqualTo(filmTag);
+    }
+
+    @Test
+    public void testPopularFilmsSkipMissingIds() {
+        assumeDatabaseStorage();
+        Film liked = filmStorage.save(createFilm("Liked Film"));
+        Film other = filmStorage.save(createFilm("Other Film"));
+        User user = userStorage.save(createUser("skipper"));
+        filmStorage.addLike(liked.getId(), user.getId());
+
+        // Строка фильма пропала из БД в обход хранилища: рейтинг не обрезается, а добирается следующими
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", liked.getId());
+
+        assertThat(filmStorage.findPopularFilms(1, null, null))
+                .extracting(Film::getId)
+                .containsExactly(other.getId());
+    }
+
+    // Откат транзакций и правка БД в обход хранилища касаются только хранилища в БД
+    private void assumeDatabaseStorage() {
+        assumeTrue(filmStorage instanceof FilmDbStorage, "хранилище в памяти не участвует в транзакциях БД");
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Test Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        return film;
+    }
 }
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Те же сценарии, что и в {@link FilmDbStorageTest}, на хранилищах профиля in-memory
+ */
+@ActiveProfiles("in-memory")
+public class InMemoryFilmStorageTest extends FilmDbStorageTest {
+}
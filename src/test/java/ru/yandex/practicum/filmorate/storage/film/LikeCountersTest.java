@@ -0,0 +1,206 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.BulkLookup;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendsIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Сброс по таймеру отключён длинным интервалом: тесты вызывают fold() сами
+@JdbcTest(properties = {"filmorate.likes.counters.enabled=true",
+        "filmorate.likes.counters.fold-interval-ms=3600000"})
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({TestDatabaseCleaner.class, FilmDbStorage.class, PopularFilmsIndex.class, LikesIndex.class,
+        FilmSearchIndex.class, GenreDbStorage.class, FilmVersions.class, LikeCounters.class, UserDbStorage.class,
+        FriendsIndex.class, BulkLookup.class, MpaDbStorage.class})
+public class LikeCountersTest {
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final LikeCounters likeCounters;
+    private final TestDatabaseCleaner testDatabaseCleaner;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        testDatabaseCleaner.cleanDatabase();
+    }
+
+    @Test
+    public void testLikesReachRateAndPopularOnFold() {
+        Film first = filmStorage.save(createFilm("First Film"));
+        Film second = filmStorage.save(createFilm("Second Film"));
+        User alice = userStorage.save(createUser("alice"));
+        User bob = userStorage.save(createUser("bob"));
+        User carol = userStorage.save(createUser("carol"));
+
+        filmStorage.addLike(first.getId(), alice.getId());
+        filmStorage.addLike(second.getId(), alice.getId());
+        filmStorage.addLike(second.getId(), bob.getId());
+        filmStorage.addLike(second.getId(), carol.getId());
+        filmStorage.removeLike(second.getId(), carol.getId());
+        String tagBeforeFold = filmStorage.versionTag(second.getId());
+
+        // До сброса счётчик в БД, рейтинг и версия фильма не меняются
+        assertThat(likeCounters.pending(second.getId())).isEqualTo(2);
+        assertThat(filmStorage.findById(second.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isZero());
+
+        assertThat(likeCounters.fold()).isEqualTo(2);
+
+        assertThat(likeCounters.pending(second.getId())).isZero();
+        assertThat(filmStorage.findById(second.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(2));
+        assertThat(filmStorage.findPopularFilms(2, null, null))
+                .extracting(Film::getId)
+                .containsExactly(second.getId(), first.getId());
+        assertThat(filmStorage.versionTag(second.getId())).isNotEqualTo(tagBeforeFold);
+        assertThat(likeCounters.fold()).isZero();
+    }
+
+    @Test
+    public void testBatchedLikesGoThroughCounters() {
+        Film film = filmStorage.save(createFilm("Batch Film"));
+        User first = userStorage.save(createUser("batch1"));
+        User second = userStorage.save(createUser("batch2"));
+
+        filmStorage.applyLikes(List.of(
+                new LikeEvent(film.getId(), first.getId(), true),
+                new LikeEvent(film.getId(), second.getId(), true)));
+
+        assertThat(likeCounters.pending(film.getId())).isEqualTo(2);
+        likeCounters.fold();
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(2));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() {
+        Film film = filmStorage.save(createFilm("Viral Film"));
+
+        IntStream.range(0, 8).parallel().forEach(writer -> {
+            for (int i = 0; i < 10_000; i++) {
+                likeCounters.add(film.getId(), 1);
+            }
+        });
+        likeCounters.fold();
+
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(80_000));
+    }
+
+    @Test
+    public void testDeltaOfDeletedFilmIsDropped() {
+        Film film = filmStorage.save(createFilm("Deleted Film"));
+        likeCounters.add(film.getId(), 5);
+        likeCounters.add(999_999, 3);
+
+        filmStorage.delete(film.getId());
+
+        assertThat(likeCounters.fold()).isZero();
+        assertThat(likeCounters.pending(999_999)).isZero();
+        assertThat(filmStorage.findPopularFilms(10, null, null)).isEmpty();
+    }
+
+    @Test
+    public void testRolledBackLikeLeavesNoDelta() {
+        Film film = filmStorage.save(createFilm("Rolled Back Film"));
+        User user = userStorage.save(createUser("rolledback"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmStorage.addLike(film.getId(), user.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(likeCounters.pending(film.getId())).isZero();
+        assertThat(likeCounters.fold()).isZero();
+    }
+
+    @Test
+    public void testReconcileRecountsLikesFromFilmLikes() {
+        Film film = filmStorage.save(createFilm("Crashed Film"));
+        User first = userStorage.save(createUser("crash1"));
+        User second = userStorage.save(createUser("crash2"));
+        // Лайки записаны, а разности потеряны вместе с процессом до сброса
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?), (?, ?)",
+                film.getId(), first.getId(), film.getId(), second.getId());
+
+        assertThat(likeCounters.reconcile()).isEqualTo(1);
+
+        assertThat(filmStorage.findById(film.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(2));
+        assertThat(filmStorage.findPopularFilms(1, null, null))
+                .extracting(Film::getRate)
+                .containsExactly(2);
+        assertThat(likeCounters.reconcile()).isZero();
+    }
+
+    @Test
+    public void testDeletedUserLikeFoldsWithPendingLike() {
+        Film film = filmStorage.save(createFilm("Forgotten Film"));
+        Film other = filmStorage.save(createFilm("Other Film"));
+        User leaving = userStorage.save(createUser("leaving"));
+        User staying = userStorage.save(createUser("staying"));
+        filmStorage.addLike(other.getId(), staying.getId());
+
+        // Пользователь ставит лайк и удаляется до сброса: +1 и -1 должны сойтись и в БД, и в рейтинге
+        filmStorage.addLike(film.getId(), leaving.getId());
+        userStorage.delete(leaving.getId());
+        likeCounters.fold();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class,
+                film.getId())).isZero();
+        assertThat(filmStorage.findPopularFilms(2, null, null))
+                .extracting(Film::getId, Film::getRate)
+                .containsExactly(tuple(other.getId(), 1), tuple(film.getId(), 0));
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Test Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        return film;
+    }
+}
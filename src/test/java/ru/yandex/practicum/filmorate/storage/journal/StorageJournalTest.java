@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmDelete;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmLikes;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.FilmPut;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.LikeAdd;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord.LikeRemove;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StorageJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecoversChangesFromLog() throws Exception {
+        FilmState state = new FilmState();
+        StorageJournal journal = open(state);
+        write(journal, state, film(1, "Первый"));
+        write(journal, state, film(2, "Второй"));
+        write(journal, state, new LikeAdd(1, 10));
+        write(journal, state, new LikeAdd(1, 11));
+        write(journal, state, new LikeRemove(1, 10));
+        write(journal, state, new FilmDelete(2));
+        journal.close();
+
+        FilmState recovered = new FilmState();
+        open(recovered).close();
+
+        assertThat(recovered.names).isEqualTo(Map.of(1, "Первый"));
+        assertThat(recovered.likes).isEqualTo(Map.of(1, Set.of(11)));
+    }
+
+    @Test
+    public void testRecoversFromSnapshotAndLogTail() throws Exception {
+        FilmState state = new FilmState();
+        StorageJournal journal = open(state);
+        for (int id = 1; id <= 100; id++) {
+            write(journal, state, film(id, "Фильм " + id));
+            write(journal, state, new LikeAdd(id, id + 1000));
+        }
+        journal.snapshot();
+        write(journal, state, film(101, "После снимка"));
+        write(journal, state, new FilmDelete(1));
+        write(journal, state, new LikeAdd(2, 5));
+        journal.close();
+
+        // Старые сегменты удалены: остались снимок и журнал, начатый вместе с ним
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("snapshot-0000000000000002.bin", "log-0000000000000002.wal");
+        }
+
+        FilmState recovered = new FilmState();
+        open(recovered).close();
+
+        assertThat(recovered.names).isEqualTo(state.names);
+        assertThat(recovered.likes).isEqualTo(state.likes);
+        assertThat(recovered.names).doesNotContainKey(1).containsEntry(101, "После снимка");
+        assertThat(recovered.likes.get(2)).containsExactlyInAnyOrder(5, 1002);
+    }
+
+    @Test
+    public void testDropsTornTailAndContinuesAfterIt() throws Exception {
+        FilmState state = new FilmState();
+        StorageJournal journal = open(state);
+        write(journal, state, film(1, "Целый"));
+        journal.close();
+
+        // Сбой посреди записи кадра: длина есть, содержимого нет
+        Files.write(JournalFiles.log(directory, 1), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        FilmState afterCrash = new FilmState();
+        journal = open(afterCrash);
+        assertThat(afterCrash.names).isEqualTo(Map.of(1, "Целый"));
+        write(journal, afterCrash, film(2, "После сбоя"));
+        journal.close();
+
+        FilmState recovered = new FilmState();
+        open(recovered).close();
+
+        assertThat(recovered.names).isEqualTo(Map.of(1, "Целый", 2, "После сбоя"));
+    }
+
+    @Test
+    public void testConcurrentWritersAreAllDurable() throws Exception {
+        FilmState state = new FilmState();
+        StorageJournal journal = open(state);
+
+        IntStream.range(0, 8).parallel().forEach(writer -> {
+            for (int id = 1 + writer; id <= 4_000; id += 8) {
+                write(journal, state, film(id, "Фильм " + id));
+            }
+        });
+        journal.close();
+
+        FilmState recovered = new FilmState();
+        open(recovered).close();
+
+        assertThat(recovered.names).hasSize(4_000).isEqualTo(state.names);
+    }
+
+    private StorageJournal open(FilmState state) {
+        StorageJournal journal = new StorageJournal(true, directory.toString(), Long.MAX_VALUE, Long.MAX_VALUE,
+                false);
+        journal.register(state);
+        journal.afterSingletonsInstantiated();
+        return journal;
+    }
+
+    private static void write(StorageJournal journal, FilmState state, JournalRecord record) {
+        journal.awaitDurable(journal.write(record, state::apply));
+    }
+
+    private static FilmPut film(int id, String name) {
+        return new FilmPut(id, name, "Описание", 11_000, 120, 1, new int[]{1, 2});
+    }
+
+    /**
+     * Упрощённое хранилище фильмов с лайками
+     */
+    private static class FilmState implements Journaled {
+        private final Map<Integer, String> names = new ConcurrentHashMap<>();
+        private final Map<Integer, Set<Integer>> likes = new ConcurrentHashMap<>();
+
+        @Override
+        public void apply(JournalRecord record) {
+            switch (record) {
+                case FilmPut film -> names.put(film.filmId(), film.name());
+                case FilmDelete film -> {
+                    names.remove(film.filmId());
+                    likes.remove(film.filmId());
+                }
+                case LikeAdd like -> likes.computeIfAbsent(like.filmId(), id -> new TreeSet<>()).add(like.userId());
+                case LikeRemove like -> likes.computeIfPresent(like.filmId(), (id, users) -> {
+                    users.remove(like.userId());
+                    return users.isEmpty() ? null : users;
+                });
+                case FilmLikes filmLikes -> {
+                    Set<Integer> users = new TreeSet<>();
+                    for (int userId : filmLikes.userIds()) {
+                        users.add(userId);
+                    }
+                    likes.put(filmLikes.filmId(), users);
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void export(Consumer<JournalRecord> sink) {
+            new TreeMap<>(names).forEach((id, name) -> {
+                sink.accept(film(id, name));
+                Set<Integer> users = likes.get(id);
+                if (users != null) {
+                    sink.accept(new FilmLikes(id, users.stream().mapToInt(Integer::intValue).toArray()));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Те же сценарии, что и в {@link UserDbStorageTest}, на хранилищах профиля in-memory
+ */
+@ActiveProfiles("in-memory")
+public class InMemoryUserStorageTest extends UserDbStorageTest {
+}
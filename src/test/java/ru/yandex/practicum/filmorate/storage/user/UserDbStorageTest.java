@@ -1,14 +1,32 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
-import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.BulkLookup;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmVersions;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounters;
+import ru.yandex.practicum.filmorate.storage.film.LikesIndex;
+import ru.yandex.practicum.filmorate.storage.film.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.util.TestDatabaseCleaner;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -16,11 +34,26 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserDbStorage.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TestDatabaseCleaner.class, UserDbStorage.class, InMemoryUserStorage.class, FriendsIndex.class,
+        LikesIndex.class, FilmVersions.class, BulkLookup.class, FilmDbStorage.class, InMemoryFilmStorage.class,
+        PopularFilmsIndex.class, FilmSearchIndex.class, LikeCounters.class, GenreDbStorage.class, MpaDbStorage.class,
+        StorageJournal.class})
 public class UserDbStorageTest {
 
-    private final UserDbStorage userStorage;
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private TestDatabaseCleaner testDatabaseCleaner;
+
+    @BeforeEach
+    public void setUp() {
+        testDatabaseCleaner.cleanDatabase();
+    }
 
     @Test
     public void testFindUserById() {
@@ -74,4 +107,113 @@ public class UserDbStorageTest {
         assertThat(updatedUser.getName()).isEqualTo("Updated User");
         assertThat(updatedUser.getEmail()).isEqualTo("updated@mail.ru");
     }
+
+    @Test
+    public void testExistsChecks() {
+        User user = new User();
+        user.setEmail("exists@mail.ru");
+        user.setLogin("exists");
+        user.setName("Exists");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        User savedUser = userStorage.save(user);
+
+        assertThat(userStorage.existsById(savedUser.getId())).isTrue();
+        assertThat(userStorage.existsById(999_999)).isFalse();
+        assertThat(userStorage.existsAll(List.of(savedUser.getId(), savedUser.getId()))).isTrue();
+        assertThat(userStorage.existsAll(List.of(savedUser.getId(), 999_999))).isFalse();
+    }
+
+    @Test
+    public void testFindCommonFriendsFromIndex() {
+        User first = userStorage.save(newUser("first"));
+        User second = userStorage.save(newUser("second"));
+        User common = userStorage.save(newUser("common"));
+        User onlyFirst = userStorage.save(newUser("onlyfirst"));
+
+        userStorage.addFriend(first.getId(), common.getId());
+        userStorage.addFriend(first.getId(), onlyFirst.getId());
+        userStorage.addFriend(second.getId(), common.getId());
+
+        assertThat(userStorage.findCommonFriends(first.getId(), second.getId()))
+                .extracting(User::getId)
+                .containsExactly(common.getId());
+        assertThat(userStorage.findById(first.getId()).orElseThrow().getFriends())
+                .containsExactlyInAnyOrder(common.getId(), onlyFirst.getId());
+
+        userStorage.removeFriend(second.getId(), common.getId());
+        assertThat(userStorage.findCommonFriends(first.getId(), second.getId())).isEmpty();
+
+        userStorage.delete(common.getId());
+        assertThat(userStorage.findById(first.getId()).orElseThrow().getFriends())
+                .containsExactly(onlyFirst.getId());
+    }
+
+    @Test
+    public void testFindFriendSuggestionsRanksByMutualFriends() {
+        User user = userStorage.save(newUser("user"));
+        User friendA = userStorage.save(newUser("frienda"));
+        User friendB = userStorage.save(newUser("friendb"));
+        User popular = userStorage.save(newUser("popular"));
+        User rare = userStorage.save(newUser("rare"));
+
+        userStorage.addFriend(user.getId(), friendA.getId());
+        userStorage.addFriend(user.getId(), friendB.getId());
+        userStorage.addFriend(friendA.getId(), popular.getId());
+        userStorage.addFriend(friendB.getId(), popular.getId());
+        userStorage.addFriend(friendB.getId(), rare.getId());
+        // Уже друг и сам пользователь в рекомендации не попадают
+        userStorage.addFriend(friendA.getId(), friendB.getId());
+        userStorage.addFriend(friendB.getId(), user.getId());
+
+        assertThat(userStorage.findFriendSuggestions(user.getId(), 10))
+                .extracting(User::getId)
+                .containsExactly(popular.getId(), rare.getId());
+        assertThat(userStorage.findFriendSuggestions(user.getId(), 1))
+                .extracting(User::getId)
+                .containsExactly(popular.getId());
+    }
+
+    @Test
+    public void testDeleteUserTakesBackHisLikes() {
+        User fan = userStorage.save(newUser("fan"));
+        User other = userStorage.save(newUser("other"));
+        Film first = filmStorage.save(newFilm("First Film"));
+        Film second = filmStorage.save(newFilm("Second Film"));
+
+        filmStorage.addLike(first.getId(), fan.getId());
+        filmStorage.addLike(first.getId(), other.getId());
+        filmStorage.addLike(second.getId(), fan.getId());
+
+        userStorage.delete(fan.getId());
+
+        assertThat(filmStorage.findById(first.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isEqualTo(1));
+        assertThat(filmStorage.findById(second.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getRate()).isZero());
+        assertThat(filmStorage.findPopularFilms(2, null, null))
+                .extracting(Film::getRate)
+                .containsExactly(1, 0);
+    }
+
+    private User newUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Test Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        return film;
+    }
 }
@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.util;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryIndex;
 
 import java.util.List;
 
@@ -12,10 +14,13 @@ public class TestDatabaseCleaner {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final ObjectProvider<InMemoryIndex> indexes;
+
     private final List<String> tables = List.of("film_likes", "film_genres", "friends", "films", "users");
 
-    public TestDatabaseCleaner(JdbcTemplate jdbcTemplate) {
+    public TestDatabaseCleaner(JdbcTemplate jdbcTemplate, ObjectProvider<InMemoryIndex> indexes) {
         this.jdbcTemplate = jdbcTemplate;
+        this.indexes = indexes;
     }
 
     public void cleanDatabase() {
@@ -35,5 +40,8 @@ public class TestDatabaseCleaner {
         }
 
         jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+
+        // Индексы в памяти строятся по БД, поэтому после очистки их нужно перестроить
+        indexes.orderedStream().forEach(InMemoryIndex::rebuild);
     }
 }